@@ -0,0 +1,89 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.config.JwtProperties;
+import com.dev.passwordmanager.config.security.UserSecurity;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.RevokedTokenRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del filtro JWT por petición autenticada: verificación del token, consulta de la
+ * lista de revocados, comprobación de versión (con la caché ya caliente) y construcción
+ * del principal.
+ *
+ * El modo stateful usa un UserDetailsService en memoria, así que solo mide la parte de CPU;
+ * en producción añade la consulta a users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"true", "false"})
+    private boolean stateless;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        // Sin claves configuradas: par ES256 efímero
+        JwtProperties properties = new JwtProperties();
+        properties.setExpiration(86400000L);
+        JwtService jwtService = new JwtService(properties);
+
+        User user = User.builder()
+                .id(1L)
+                .email("bench@test.com")
+                .name("Bench")
+                .password("hash")
+                .enabled(true)
+                .build();
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0));
+        TokenVersionService tokenVersionService =
+                new TokenVersionService(userRepository, new SimpleMeterRegistry(), 10000, Duration.ofHours(1));
+
+        // Lista con revocaciones de otros tokens: la consulta del token válido se resuelve en el Bloom
+        TokenDenylist tokenDenylist = new TokenDenylist(Mockito.mock(RevokedTokenRepository.class),
+                Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 100000, 0.001, 1000);
+        for (int i = 0; i < 10000; i++) {
+            tokenDenylist.revoke(UUID.randomUUID().toString(), Instant.now().plus(Duration.ofHours(1)));
+        }
+
+        filter = new JwtAuthenticationFilter(jwtService, email -> new UserSecurity(user), tokenVersionService, tokenDenylist);
+        ReflectionTestUtils.setField(filter, "stateless", stateless);
+
+        request = new MockHttpServletRequest("GET", "/api/passwords");
+        request.addHeader("Authorization", "Bearer " + jwtService.generateToken(new UserSecurity(user)));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,55 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.config.JwtProperties;
+import com.dev.passwordmanager.config.security.UserSecurity;
+import com.dev.passwordmanager.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+
+    private JwtService jwtService;
+    private UserSecurity userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // Sin claves configuradas: par ES256 efímero
+        JwtProperties properties = new JwtProperties();
+        properties.setExpiration(86400000L);
+        jwtService = new JwtService(properties);
+
+        User user = User.builder()
+                .id(1L)
+                .email("bench@test.com")
+                .name("Bench")
+                .password("hash")
+                .enabled(true)
+                .build();
+        userDetails = new UserSecurity(user);
+        token = jwtService.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public JwtClaims verify() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, userDetails);
+    }
+}
@@ -0,0 +1,34 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.dto.password.GeneratedPasswordDTO;
+import com.dev.passwordmanager.dto.password.PasswordGeneratorDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordGeneratorBenchmark {
+
+    @Param({"8", "16", "32", "64", "100"})
+    private int length;
+
+    private PasswordGeneratorService passwordGeneratorService;
+    private PasswordGeneratorDTO config;
+
+    @Setup
+    public void setUp() {
+        passwordGeneratorService = new PasswordGeneratorService();
+        config = new PasswordGeneratorDTO();
+        config.setLength(length);
+    }
+
+    @Benchmark
+    public GeneratedPasswordDTO generatedPassword() {
+        return passwordGeneratorService.generatedPassword(config);
+    }
+}
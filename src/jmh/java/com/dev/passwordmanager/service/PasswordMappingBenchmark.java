@@ -0,0 +1,63 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.dto.password.PasswordEntryDTO;
+import com.dev.passwordmanager.model.Category;
+import com.dev.passwordmanager.model.PasswordEntry;
+import com.dev.passwordmanager.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Mapeo entidad -> DTO de listados grandes, tal como lo hace getUserPasswords.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordMappingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int entries;
+
+    private PasswordService passwordService;
+    private List<PasswordEntry> passwordEntries;
+
+    @Setup
+    public void setUp() {
+        passwordService = new PasswordService(null, null, null, null, null);
+
+        User user = new User();
+        user.setId(1L);
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Trabajo");
+        category.setUser(user);
+
+        passwordEntries = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            PasswordEntry entry = new PasswordEntry();
+            entry.setId((long) i);
+            entry.setName("Entrada " + i);
+            entry.setUsername("usuario" + i);
+            entry.setPassword("cifrado");
+            entry.setWebsite("https://sitio" + i + ".example.com");
+            entry.setNotes("Notas " + i);
+            entry.setUser(user);
+            entry.setCategory(i % 2 == 0 ? category : null);
+            passwordEntries.add(entry);
+        }
+    }
+
+    @Benchmark
+    public List<PasswordEntryDTO.Response> convertToResponse() {
+        return passwordEntries.stream()
+                .map(passwordService::convertToResponse)
+                .collect(Collectors.toList());
+    }
+}
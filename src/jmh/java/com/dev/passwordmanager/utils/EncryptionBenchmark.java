@@ -0,0 +1,91 @@
+package com.dev.passwordmanager.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cifrado/descifrado de {@link EncryptionUtil} frente a la implementación original
+ * (métodos legacy*), que crea SecureRandom, clave y Cipher en cada llamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionBenchmark {
+
+    private static final String LEGACY_KEY = "01234567890123456789012345678901";
+
+    @Param({"16", "256", "4096"})
+    private int payloadSize;
+
+    private EncryptionUtil encryptionUtil;
+    private String plainText;
+    private byte[] plainBytes;
+    private String encryptedText;
+    private byte[] encryptedBytes;
+
+    @Setup
+    public void setUp() {
+        encryptionUtil = new EncryptionUtil();
+        plainText = "x".repeat(payloadSize);
+        plainBytes = plainText.getBytes();
+        encryptedText = encryptionUtil.encrypt(plainText);
+        encryptedBytes = encryptionUtil.encrypt(plainBytes);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionUtil.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionUtil.decrypt(encryptedText);
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() {
+        return encryptionUtil.encrypt(plainBytes);
+    }
+
+    @Benchmark
+    public byte[] decryptBytes() {
+        return encryptionUtil.decrypt(encryptedBytes);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        SecretKey secretKey = new SecretKeySpec(LEGACY_KEY.getBytes(), "AES");
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+        byte[] encryptedData = cipher.doFinal(plainText.getBytes());
+        byte[] combined = new byte[iv.length + encryptedData.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encryptedData, 0, combined, iv.length, encryptedData.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        byte[] decoded = Base64.getDecoder().decode(encryptedText);
+        byte[] iv = new byte[12];
+        System.arraycopy(decoded, 0, iv, 0, iv.length);
+        byte[] encrypted = new byte[decoded.length - 12];
+        System.arraycopy(decoded, 12, encrypted, 0, encrypted.length);
+        SecretKey secretKey = new SecretKeySpec(LEGACY_KEY.getBytes(), "AES");
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+        return new String(cipher.doFinal(encrypted));
+    }
+}
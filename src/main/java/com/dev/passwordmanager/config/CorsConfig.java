@@ -38,6 +38,12 @@ public class CorsConfig {
                 "Origin"
         ));
 
+        // Headers de respuesta legibles desde el navegador
+        configuration.setExposedHeaders(Arrays.asList(
+                "X-Next-Cursor",
+                "Content-Disposition"
+        ));
+
         // Permite incluir credentials (cookies, headers de autorización)
         configuration.setAllowCredentials(true);
 
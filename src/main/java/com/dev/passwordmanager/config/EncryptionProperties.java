@@ -0,0 +1,53 @@
+package com.dev.passwordmanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "encryption")
+public class EncryptionProperties {
+
+    // Clave maestra única (Base64, 32 bytes); equivale a master-keys.1
+    private String masterKey;
+
+    // Claves maestras por versión; durante una rotación conviven la anterior y la nueva
+    private Map<Integer, String> masterKeys = new HashMap<>();
+
+    // Versión con la que se cifran las escrituras nuevas
+    private int activeKeyVersion = 1;
+
+    // Clave HMAC de los índices ciegos (Base64). No rota con las claves maestras:
+    // cambiarla obliga a recalcular todos los índices. Si falta, se deriva de master-keys.1
+    private String blindIndexKey;
+
+    private DataKeyCache dataKeyCache = new DataKeyCache();
+    private Rotation rotation = new Rotation();
+
+    public Map<Integer, String> resolveMasterKeys() {
+        Map<Integer, String> keys = new HashMap<>(masterKeys);
+        if (masterKey != null && !masterKey.isBlank()) {
+            keys.putIfAbsent(1, masterKey);
+        }
+        return keys;
+    }
+
+    @Data
+    public static class DataKeyCache {
+        private int maxSize = 10000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Rotation {
+        private boolean enabled = true;
+        private int batchSize = 200;
+        // Límite de filas re-cifradas por segundo para no competir con el tráfico real
+        private int rowsPerSecond = 500;
+    }
+}
@@ -0,0 +1,41 @@
+package com.dev.passwordmanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+    // Duración del access token en milisegundos
+    private long expiration = 900000;
+
+    // kid de la clave con la que se firman los tokens nuevos
+    private String activeKeyId;
+
+    // Claves ES256. Durante una rotación conviven la nueva y la anterior; la anterior
+    // puede dejarse sin clave privada y solo sirve para verificar
+    private List<SigningKey> keys = new ArrayList<>();
+
+    // Sin claves configuradas se genera un par efímero al arrancar (los tokens no
+    // sobreviven a un reinicio ni valen en otras instancias). Solo para desarrollo
+    private boolean allowEphemeralKey = true;
+
+    // Secreto HS256 anterior a ES256: si está, se siguen aceptando los tokens firmados
+    // con él (sin kid) hasta que caduquen. No se usa para firmar
+    private String secret;
+
+    @Data
+    public static class SigningKey {
+        private String id;
+        // PKCS#8 DER en Base64; opcional en claves que solo verifican
+        private String privateKey;
+        // X.509 (SubjectPublicKeyInfo) DER en Base64
+        private String publicKey;
+    }
+}
@@ -6,6 +6,10 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
+
+import java.util.Locale;
 import java.util.Properties;
 
 @Configuration
@@ -35,8 +39,20 @@ public class MailConfig {
         props.put("mail.transport.protocol", "smtp");
         props.put("mail.smtp.auth", "true");
         props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.debug", "true"); // Útil para debugging, puedes quitarlo en producción
+        // Sin límites, un servidor SMTP colgado bloquearía el envío del outbox indefinidamente
+        props.put("mail.smtp.connectiontimeout", "10000");
+        props.put("mail.smtp.timeout", "10000");
+        props.put("mail.smtp.writetimeout", "10000");
 
         return mailSender;
     }
+
+    // Sin Accept-Language, Locale.ROOT: las plantillas de email usan la versión sin sufijo
+    // (español) en lugar del idioma por defecto de la JVM
+    @Bean
+    public LocaleResolver localeResolver() {
+        AcceptHeaderLocaleResolver resolver = new AcceptHeaderLocaleResolver();
+        resolver.setDefaultLocale(Locale.ROOT);
+        return resolver;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.dev.passwordmanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.password-hashing")
+public class PasswordHashingProperties {
+
+    // Hashes en paralelo; 0 = un hilo por núcleo
+    private int threads = 0;
+
+    // Peticiones esperando hash; con la cola llena se responde 503
+    private int queueCapacity = 64;
+
+    private Duration retryAfter = Duration.ofSeconds(2);
+
+    // Coste BCrypt fijo; 0 = calibrarlo al arrancar para acercarse a targetLatency
+    private int cost = 0;
+
+    // Duración buscada para un hash en esta máquina
+    private Duration targetLatency = Duration.ofMillis(250);
+
+    // Límites de la calibración: nunca por debajo de minCost aunque la máquina sea lenta
+    private int minCost = 10;
+    private int maxCost = 16;
+}
@@ -0,0 +1,93 @@
+package com.dev.passwordmanager.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cambios de esquema que ddl-auto=update no aplica por sí mismo (nunca relaja
+ * restricciones de columnas existentes). Solo hacen falta en bases PostgreSQL creadas
+ * por versiones anteriores; en cualquier otra (H2 en los tests) el esquema ya nace bien.
+ *
+ * Cada paso se aplica una sola vez: su id se guarda en schema_upgrades en la misma
+ * transacción que el cambio. Si un paso falla, la aplicación no arranca.
+ */
+@Slf4j
+@Component
+// Después de que Hibernate haya creado o actualizado las tablas
+@DependsOn("entityManagerFactory")
+public class SchemaUpgrade implements InitializingBean {
+
+    private static final List<Step> STEPS = List.of(
+            // password pasa a ser opcional: las filas nuevas solo usan password_cipher
+            new Step("password-entries-password-nullable",
+                    "select count(*) from information_schema.columns where table_name = 'password_entries' " +
+                            "and column_name = 'password' and is_nullable = 'NO'",
+                    "alter table password_entries alter column password drop not null"),
+            // Las filas creadas con IDENTITY ya ocupan ids: la secuencia debe empezar por encima.
+            // greatest() nunca la hace retroceder aunque otra instancia ya haya reservado ids
+            new Step("password-entries-seq-after-identity",
+                    "select count(*) from password_entries",
+                    "select setval('password_entries_seq', greatest(" +
+                            "(select coalesce(max(id), 0) from password_entries) + 50, " +
+                            "(select last_value from password_entries_seq)))")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SchemaUpgrade(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.debug("Sin cambios de esquema pendientes para {}", database);
+            return;
+        }
+        jdbcTemplate.execute("create table if not exists schema_upgrades (" +
+                "id varchar(100) primary key, applied_at timestamp not null)");
+        for (Step step : STEPS) {
+            apply(step);
+        }
+    }
+
+    private void apply(Step step) {
+        Integer applied = jdbcTemplate.queryForObject("select count(*) from schema_upgrades where id = ?", Integer.class, step.id());
+        if (applied != null && applied > 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // El insert reserva el paso: otra instancia que arranque a la vez espera aquí y después lo encuentra hecho
+                jdbcTemplate.update("insert into schema_upgrades (id, applied_at) values (?, ?)", step.id(), LocalDateTime.now());
+                Integer pending = jdbcTemplate.queryForObject(step.guard(), Integer.class);
+                if (pending != null && pending > 0) {
+                    jdbcTemplate.execute(step.sql());
+                    log.info("Cambio de esquema aplicado: {}", step.id());
+                }
+            });
+        } catch (DuplicateKeyException e) {
+            log.debug("Cambio de esquema {} aplicado por otra instancia", step.id());
+        }
+    }
+
+    /**
+     * @param guard consulta que devuelve un número mayor que 0 si el cambio hace falta
+     */
+    private record Step(String id, String guard, String sql) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.dev.passwordmanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.throttle")
+public class ThrottleProperties {
+
+    private boolean enabled = true;
+
+    // Cada cuánto se quitan de memoria los cubos que ya se han rellenado
+    private Duration evictionInterval = Duration.ofMinutes(1);
+
+    // Duración máxima de un bloqueo de cuenta en login; cada bloqueo seguido dura el doble que el anterior
+    private Duration maxLockout = Duration.ofHours(1);
+
+    // Límites por endpoint (login, resend-code); un endpoint sin entrada no se limita
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    @Data
+    public static class Endpoint {
+        // Peticiones desde una misma dirección
+        private Limit perIp;
+        // Por email: en login se cobra cada intento y se devuelve si es correcto
+        private Limit perAccount;
+    }
+
+    @Data
+    public static class Limit {
+        // Ráfaga máxima; después, un intento más cada period / capacity
+        private int capacity;
+        private Duration period;
+    }
+}
@@ -0,0 +1,172 @@
+package com.dev.passwordmanager.config.security;
+
+import com.dev.passwordmanager.config.ThrottleProperties;
+import com.dev.passwordmanager.exception.RateLimitExceededException;
+import com.dev.passwordmanager.utils.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Límite de intentos en los endpoints de autenticación, antes de llegar a
+ * AuthenticationManager (BCrypt y base de datos) o a EmailVerificationService (SMTP).
+ *
+ * Cada endpoint tiene un cubo por IP y otro por email. En login el intento se cobra al
+ * cubo de la cuenta antes de autenticar, así que varias peticiones simultáneas no pasan
+ * todas por la misma comprobación; un login correcto lo devuelve. Agotado el cubo, la
+ * cuenta queda bloqueada, y cada fallo que la vuelve a bloquear dobla la duración del
+ * bloqueo anterior, hasta security.throttle.max-lockout. En resend-code cuenta cada envío.
+ */
+@Slf4j
+@Component
+public class AuthThrottle {
+
+    public static final String LOGIN = "login";
+    public static final String RESEND_CODE = "resend-code";
+
+    private final boolean enabled;
+    private final Duration maxLockout;
+    private final Map<String, RateLimiter> perIp = new HashMap<>();
+    private final Map<String, RateLimiter> perAccount = new HashMap<>();
+    // Bloqueos seguidos de cada cuenta en login; se olvidan cuando su cubo se rellena
+    private final ConcurrentHashMap<String, AtomicInteger> lockouts = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public AuthThrottle(ThrottleProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AuthThrottle(ThrottleProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.enabled = properties.isEnabled();
+        this.maxLockout = properties.getMaxLockout();
+        this.meterRegistry = meterRegistry;
+        properties.getEndpoints().forEach((endpoint, limits) -> {
+            if (limits.getPerIp() != null) {
+                perIp.put(endpoint, newLimiter(limits.getPerIp(), nanoClock));
+            }
+            if (limits.getPerAccount() != null) {
+                perAccount.put(endpoint, newLimiter(limits.getPerAccount(), nanoClock));
+            }
+        });
+        Gauge.builder("auth.throttle.buckets", this, AuthThrottle::bucketCount).register(meterRegistry);
+    }
+
+    // Antes de autenticar: consume un intento de la IP y otro de la cuenta
+    public void checkLogin(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        acquire(LOGIN, "ip", perIp.get(LOGIN), clientIp);
+        acquire(LOGIN, "account", perAccount.get(LOGIN), accountKey(email));
+    }
+
+    // El intento ya está cobrado; si ha dejado la cuenta bloqueada, el bloqueo crece
+    public void loginFailed(String email) {
+        RateLimiter accounts = perAccount.get(LOGIN);
+        if (!enabled || accounts == null || email == null) {
+            return;
+        }
+        String key = accountKey(email);
+        if (accounts.peek(key).isZero()) {
+            return;
+        }
+        int lockout = lockouts.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+        accounts.block(key, lockoutDuration(accounts.getEmissionInterval(), lockout));
+    }
+
+    public void loginSucceeded(String email) {
+        RateLimiter accounts = perAccount.get(LOGIN);
+        if (accounts != null && email != null) {
+            String key = accountKey(email);
+            accounts.reset(key);
+            lockouts.remove(key);
+        }
+    }
+
+    // La autenticación no llegó a hacerse (p. ej. 503 por saturación): no cuenta como intento
+    public void loginAborted(String email) {
+        RateLimiter accounts = perAccount.get(LOGIN);
+        if (enabled && accounts != null && email != null) {
+            accounts.refund(accountKey(email));
+        }
+    }
+
+    public void checkResendCode(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        acquire(RESEND_CODE, "ip", perIp.get(RESEND_CODE), clientIp);
+        acquire(RESEND_CODE, "account", perAccount.get(RESEND_CODE), accountKey(email));
+    }
+
+    @Scheduled(fixedDelayString = "${security.throttle.eviction-interval:PT1M}",
+            initialDelayString = "${security.throttle.eviction-interval:PT1M}")
+    public void evictIdle() {
+        int evicted = 0;
+        for (RateLimiter limiter : perIp.values()) {
+            evicted += limiter.evictIdle();
+        }
+        for (RateLimiter limiter : perAccount.values()) {
+            evicted += limiter.evictIdle();
+        }
+        RateLimiter accounts = perAccount.get(LOGIN);
+        lockouts.keySet().removeIf(key -> accounts == null || !accounts.contains(key));
+        if (evicted > 0) {
+            log.debug("Eliminados {} contadores de intentos inactivos", evicted);
+        }
+    }
+
+    private void acquire(String endpoint, String scope, RateLimiter limiter, String key) {
+        if (limiter != null && key != null) {
+            reject(endpoint, scope, limiter.tryAcquire(key));
+        }
+    }
+
+    /**
+     * Duración del bloqueo número {@code lockout}: el primero, lo que tarda en volver un
+     * token (emissionInterval); cada uno de los siguientes, el doble que el anterior, sin
+     * pasar de maxLockout. Varios fallos a la vez no suman sus duraciones: queda la más larga.
+     */
+    private Duration lockoutDuration(Duration emissionInterval, int lockout) {
+        Duration lock = emissionInterval.multipliedBy(1L << Math.min(lockout - 1, 20));
+        return lock.compareTo(maxLockout) > 0 ? maxLockout : lock;
+    }
+
+    private void reject(String endpoint, String scope, Duration wait) {
+        if (wait.isZero()) {
+            return;
+        }
+        Counter.builder("auth.throttle.rejected")
+                .tag("endpoint", endpoint)
+                .tag("scope", scope)
+                .register(meterRegistry)
+                .increment();
+        throw new RateLimitExceededException("Demasiados intentos, inténtalo de nuevo más tarde", wait);
+    }
+
+    private int bucketCount() {
+        return perIp.values().stream().mapToInt(RateLimiter::size).sum()
+                + perAccount.values().stream().mapToInt(RateLimiter::size).sum();
+    }
+
+    private static String accountKey(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static RateLimiter newLimiter(ThrottleProperties.Limit limit, LongSupplier nanoClock) {
+        return new RateLimiter(limit.getCapacity(), limit.getPeriod(), nanoClock);
+    }
+}
@@ -0,0 +1,45 @@
+package com.dev.passwordmanager.config.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * Elige el coste BCrypt para esta máquina: el mayor cuyo hash no supere la latencia
+ * objetivo. Solo se mide el coste mínimo; cada punto más duplica el trabajo, así que
+ * el resto se extrapola sin pagar hashes caros durante el arranque.
+ */
+@Slf4j
+final class BCryptCostCalibrator {
+
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    static int calibrate(Duration targetLatency, int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(minCost);
+        // Primera ejecución de calentamiento (JIT)
+        BCrypt.hashpw("calibration", salt);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return select(best, targetLatency.toNanos(), minCost, maxCost);
+    }
+
+    static int select(long nanosAtMinCost, long targetNanos, int minCost, int maxCost) {
+        int cost = minCost;
+        long estimate = nanosAtMinCost;
+        while (cost < maxCost && estimate * 2 <= targetNanos) {
+            estimate *= 2;
+            cost++;
+        }
+        log.info("Coste BCrypt calibrado: {} (~{} ms por hash, objetivo {} ms)",
+                cost, Duration.ofNanos(estimate).toMillis(), Duration.ofNanos(targetNanos).toMillis());
+        return cost;
+    }
+}
@@ -4,13 +4,15 @@ import com.dev.passwordmanager.model.User;
 import com.dev.passwordmanager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -21,4 +23,14 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return new UserSecurity(user);
     }
+
+    // Llamado por DaoAuthenticationProvider cuando el hash guardado usa parámetros anticuados
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePassword(userDetails.getUsername(), newPassword);
+        User user = ((UserSecurity) userDetails).getUser();
+        user.setPassword(newPassword);
+        return new UserSecurity(user);
+    }
 }
\ No newline at end of file
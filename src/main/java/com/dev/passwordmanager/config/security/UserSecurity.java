@@ -14,6 +14,19 @@ public class UserSecurity implements UserDetails {
 
     private final User user;
 
+    /**
+     * Principal construido solo con los claims verificados de un JWT. El User es parcial
+     * (id, email, enabled y versión de token): quien necesite el resto debe cargarlo.
+     */
+    public static UserSecurity fromToken(Long id, String email, boolean enabled, int tokenVersion) {
+        return new UserSecurity(User.builder()
+                .id(id)
+                .email(email)
+                .enabled(enabled)
+                .tokenVersion(tokenVersion)
+                .build());
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_USER"));
@@ -31,6 +44,11 @@ public class UserSecurity implements UserDetails {
 
     public String getEmail(){ return user.getEmail(); }
 
+    // Los servicios trabajan con el id del usuario autenticado, sin volver a buscarlo por email
+    public Long getId() {
+        return user.getId();
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return true;
@@ -51,7 +69,7 @@ public class UserSecurity implements UserDetails {
         return user.isEnabled();
     }
 
-    // Método útil para obtener el User original
+    // Método útil para obtener el User original (parcial si viene de fromToken)
     public User getUser() {
         return user;
     }
@@ -1,11 +1,13 @@
 package com.dev.passwordmanager.config.security.jwt;
 
 
+import com.dev.passwordmanager.config.security.UserSecurity;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,6 +25,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
+    private final TokenDenylist tokenDenylist;
+
+    // true: el principal sale de los claims del token y solo se comprueba la versión (cacheada)
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(
@@ -38,12 +46,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String userEmail = jwtService.extractUsername(jwt);
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Una sola verificación de firma por petición
+            JwtClaims claims = jwtService.verify(jwt);
+            UserDetails userDetails;
+            if (claims.tokenId() != null && tokenDenylist.isRevoked(claims.tokenId())) {
+                // Cerró sesión con este token
+                userDetails = null;
+            } else if (stateless && claims.userId() != null) {
+                userDetails = fromClaims(claims);
+            } else {
+                // Los tokens emitidos antes de incluir el id siguen validándose contra la base de datos
+                userDetails = fromDatabase(claims);
+            }
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -57,4 +75,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails fromClaims(JwtClaims claims) {
+        if (!tokenVersionService.isCurrent(claims.userId(), claims.tokenVersion())) {
+            return null;
+        }
+        return UserSecurity.fromToken(claims.userId(), claims.subject(), claims.enabled(), claims.tokenVersion());
+    }
+
+    private UserDetails fromDatabase(JwtClaims claims) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.subject());
+        if (userDetails instanceof UserSecurity userSecurity
+                && userSecurity.getUser().getTokenVersion() != claims.tokenVersion()) {
+            return null;
+        }
+        return userDetails;
+    }
+}
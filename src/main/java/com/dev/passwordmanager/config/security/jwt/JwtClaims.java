@@ -0,0 +1,13 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import java.time.Instant;
+
+/**
+ * Contenido de un JWT ya verificado (firma y expiración).
+ *
+ * @param tokenId      claim jti; null en tokens emitidos antes de poder revocarlos
+ * @param userId       null en tokens emitidos antes de incluir el id
+ * @param tokenVersion 0 si el token no trae versión
+ */
+public record JwtClaims(String tokenId, String subject, Instant expiresAt, Long userId, boolean enabled, int tokenVersion) {
+}
@@ -0,0 +1,150 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.config.JwtProperties;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Claves de firma de los JWT, resueltas una vez al arrancar: la privada activa, las
+ * públicas indexadas por kid y su publicación como JWK Set.
+ */
+@Slf4j
+final class JwtKeyRing {
+
+    private static final String CURVE = "secp256r1";
+    private static final int COORDINATE_BYTES = 32;
+
+    private final String activeKeyId;
+    private final PrivateKey signingKey;
+    private final Map<String, PublicKey> verificationKeys;
+    private final Key legacyKey;
+    private final Map<String, Object> publicKeySet;
+
+    JwtKeyRing(JwtProperties properties) {
+        Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+        Map<String, PrivateKey> privateKeys = new HashMap<>();
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            for (JwtProperties.SigningKey key : properties.getKeys()) {
+                if (key.getId() == null || key.getPublicKey() == null) {
+                    throw new IllegalStateException("Cada clave JWT necesita id y public-key");
+                }
+                PublicKey publicKey = keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey())));
+                if (!(publicKey instanceof ECPublicKey ecKey) || ecKey.getParams().getCurve().getField().getFieldSize() != 256) {
+                    throw new IllegalStateException("La clave JWT " + key.getId() + " no es P-256");
+                }
+                publicKeys.put(key.getId(), publicKey);
+                if (key.getPrivateKey() != null && !key.getPrivateKey().isBlank()) {
+                    privateKeys.put(key.getId(), keyFactory.generatePrivate(
+                            new PKCS8EncodedKeySpec(Base64.getDecoder().decode(key.getPrivateKey()))));
+                }
+            }
+
+            if (publicKeys.isEmpty()) {
+                if (!properties.isAllowEphemeralKey()) {
+                    throw new IllegalStateException("No hay claves JWT configuradas (jwt.keys)");
+                }
+                String keyId = "ephemeral-" + UUID.randomUUID().toString().substring(0, 8);
+                log.warn("Sin claves JWT configuradas: se usa la clave efímera {}. Los tokens no sobrevivirán a un reinicio", keyId);
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec(CURVE));
+                KeyPair keyPair = generator.generateKeyPair();
+                publicKeys.put(keyId, keyPair.getPublic());
+                privateKeys.put(keyId, keyPair.getPrivate());
+                this.activeKeyId = keyId;
+            } else {
+                this.activeKeyId = properties.getActiveKeyId();
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Claves JWT inválidas", e);
+        }
+
+        this.signingKey = privateKeys.get(activeKeyId);
+        if (signingKey == null) {
+            throw new IllegalStateException("No hay clave privada para el kid activo " + activeKeyId);
+        }
+        this.verificationKeys = Map.copyOf(publicKeys);
+        this.legacyKey = properties.getSecret() != null && !properties.getSecret().isBlank()
+                ? Keys.hmacShaKeyFor(properties.getSecret().getBytes(StandardCharsets.UTF_8))
+                : null;
+
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        publicKeys.forEach((keyId, publicKey) -> jwks.add(toJwk(keyId, (ECPublicKey) publicKey)));
+        this.publicKeySet = Map.of("keys", List.copyOf(jwks));
+    }
+
+    String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    Map<String, Object> getPublicKeySet() {
+        return publicKeySet;
+    }
+
+    // Clave con la que verificar según la cabecera; el kid decide, nunca el alg por sí solo
+    Key resolve(JwsHeader<?> header) {
+        String keyId = header.getKeyId();
+        if (keyId != null) {
+            PublicKey key = verificationKeys.get(keyId);
+            if (key == null) {
+                throw new SignatureException("Clave de firma desconocida: " + keyId);
+            }
+            return key;
+        }
+        if (legacyKey != null && SignatureAlgorithm.HS256.getValue().equals(header.getAlgorithm())) {
+            return legacyKey;
+        }
+        throw new SignatureException("El token no indica con qué clave se firmó");
+    }
+
+    private static Map<String, Object> toJwk(String keyId, ECPublicKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", SignatureAlgorithm.ES256.getValue());
+        jwk.put("kid", keyId);
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    // RFC 7518: coordenada sin signo, rellenada a la izquierda hasta 32 bytes
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[COORDINATE_BYTES];
+        int length = Math.min(bytes.length, COORDINATE_BYTES);
+        System.arraycopy(bytes, bytes.length - length, padded, COORDINATE_BYTES - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
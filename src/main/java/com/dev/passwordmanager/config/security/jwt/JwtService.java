@@ -1,10 +1,14 @@
 package com.dev.passwordmanager.config.security.jwt;
 
+import com.dev.passwordmanager.config.JwtProperties;
+import com.dev.passwordmanager.config.security.UserSecurity;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
@@ -12,70 +16,91 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
 @Service
 public class JwtService {
 
-    // inyectar valor desde application.yml
-    @Value("${jwt.secret}")
-    private String SECRET_KEY;
+    // Claims con los que el filtro construye el principal sin consultar la base de datos
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ENABLED = "enabled";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
+    private final long jwtExpiration;
+    // Claves y parser se construyen una vez: el parser es inmutable y seguro entre hilos
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+
+    public JwtService(JwtProperties properties) {
+        this.jwtExpiration = properties.getExpiration();
+        this.keyRing = new JwtKeyRing(properties);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyRing.resolve(header);
+                    }
+                })
+                .build();
+    }
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    // Claves públicas en formato JWK Set (RFC 7517) para que otros servicios verifiquen los tokens
+    public Map<String, Object> getPublicKeySet() {
+        return keyRing.getPublicKeySet();
+    }
+
+    /**
+     * Verifica firma y expiración una sola vez y devuelve todos los claims que usa la aplicación.
+     * Lanza JwtException si el token no es válido o ha expirado.
+     */
+    public JwtClaims verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            // El parser solo rechaza tokens caducados, no los que no caducan nunca
+            throw new MalformedJwtException("El token no tiene fecha de expiración");
+        }
+        Integer tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+        return new JwtClaims(
+                claims.getId(),
+                claims.getSubject(),
+                claims.getExpiration().toInstant(),
+                claims.get(CLAIM_USER_ID, Long.class),
+                Boolean.TRUE.equals(claims.get(CLAIM_ENABLED, Boolean.class)),
+                // Los tokens emitidos antes de versionarlos cuentan como versión 0
+                tokenVersion != null ? tokenVersion : 0
+        );
+    }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof UserSecurity userSecurity) {
+            claims.put(CLAIM_USER_ID, userSecurity.getId());
+            claims.put(CLAIM_ENABLED, userSecurity.isEnabled());
+            claims.put(CLAIM_TOKEN_VERSION, userSecurity.getUser().getTokenVersion());
+        }
+        return generateToken(claims, userDetails);
     }
 
     // Genera un token JWT con claims adicionales
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
                 .setClaims(extraClaims) // Agrega claims extras
+                .setId(UUID.randomUUID().toString()) // jti: permite revocar este token concreto
                 .setSubject(userDetails.getUsername())  // Establece el email como subject
                 .setIssuedAt(new Date(System.currentTimeMillis()))  // Fecha de emisión
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration)) // Fecha de expiración
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256) // Firma el token
+                .signWith(keyRing.getSigningKey(), SignatureAlgorithm.ES256) // Firma el token
                 .compact();
     }
 
-
+    // La expiración ya la comprueba verify
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    // Métodos auxiliares para extraer información del token
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Key getSignInKey() {
-        byte[] keyBytes = SECRET_KEY.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return verify(token).subject().equals(userDetails.getUsername());
     }
 }
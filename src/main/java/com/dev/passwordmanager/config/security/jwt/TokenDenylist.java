@@ -0,0 +1,176 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.model.RevokedToken;
+import com.dev.passwordmanager.repository.RevokedTokenRepository;
+import com.dev.passwordmanager.utils.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Access tokens revocados (por jti) hasta que caducan.
+ *
+ * La consulta del filtro pasa primero por un filtro de Bloom: para la inmensa mayoría
+ * de tokens, que no están revocados, la respuesta sale de unos pocos accesos a bits
+ * sin reservar memoria. Solo los positivos consultan el mapa. Un conjunto ordenado
+ * por expiración permite descartar las entradas caducadas sin recorrer el mapa; como
+ * el Bloom no admite borrados, se reconstruye cuando acumula demasiadas caducadas.
+ *
+ * Las revocaciones se guardan en revoked_tokens: al arrancar se cargan las vigentes y
+ * cada pocos segundos se leen las que hayan añadido otras instancias.
+ */
+@Slf4j
+@Component
+public class TokenDenylist {
+
+    // Relectura de ids recientes: una inserción confirmada tarde puede tener un id menor que el último leído
+    private static final long SYNC_OVERLAP = 256;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final int purgeBatchSize;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Revocation> byExpiry = new ConcurrentSkipListSet<>();
+    // Las escrituras en el Bloom y su reconstrucción se serializan; las lecturas no bloquean
+    private final Object bloomLock = new Object();
+    private volatile BloomFilter bloom;
+    private int expiredSinceRebuild;
+    private volatile long lastSyncedId;
+
+    public TokenDenylist(RevokedTokenRepository revokedTokenRepository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${jwt.denylist.expected-insertions:100000}") int expectedInsertions,
+                         @Value("${jwt.denylist.false-positive-rate:0.001}") double falsePositiveRate,
+                         @Value("${jwt.denylist.purge-batch-size:1000}") int purgeBatchSize) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.purgeBatchSize = purgeBatchSize;
+        this.bloom = new BloomFilter(expectedInsertions, falsePositiveRate);
+        Gauge.builder("jwt.denylist.size", revoked, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        sync();
+        log.info("Lista de tokens revocados cargada: {} entradas", revoked.size());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (!bloom.mightContain(tokenId)) {
+            return false;
+        }
+        Instant expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    // Revoca el token hasta su expiración; revocar dos veces el mismo no es un error
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now()) || revoked.containsKey(tokenId)) {
+            return;
+        }
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setTokenId(tokenId);
+        revokedToken.setExpiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()));
+        try {
+            revokedTokenRepository.save(revokedToken);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia o petición lo revocó a la vez
+            log.debug("Token {} ya revocado", tokenId);
+        }
+        add(tokenId, expiresAt);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.sync-interval:PT10S}",
+            initialDelayString = "${jwt.denylist.sync-interval:PT10S}")
+    public void sync() {
+        long afterId = Math.max(0, lastSyncedId - SYNC_OVERLAP);
+        long maxId = lastSyncedId;
+        for (RevokedToken revokedToken : revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+                afterId, LocalDateTime.now())) {
+            add(revokedToken.getTokenId(), revokedToken.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+            maxId = Math.max(maxId, revokedToken.getId());
+        }
+        lastSyncedId = maxId;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.purge-interval:PT5M}",
+            initialDelayString = "${jwt.denylist.purge-interval:PT5M}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int expired = 0;
+        Revocation head;
+        while ((head = byExpiry.pollFirst()) != null) {
+            if (head.expiresAt().isAfter(now)) {
+                byExpiry.add(head);
+                break;
+            }
+            revoked.remove(head.tokenId(), head.expiresAt());
+            expired++;
+        }
+        if (expired > 0) {
+            synchronized (bloomLock) {
+                expiredSinceRebuild += expired;
+                // Los bits de las caducadas siguen puestos y suben la tasa de falsos positivos
+                if (expiredSinceRebuild > revoked.size()) {
+                    rebuildBloom();
+                }
+            }
+        }
+
+        LocalDateTime cutoff = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+        int deleted;
+        do {
+            Integer batch = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(cutoff, purgeBatchSize));
+            deleted = batch != null ? batch : 0;
+        } while (deleted == purgeBatchSize);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void add(String tokenId, Instant expiresAt) {
+        synchronized (bloomLock) {
+            if (revoked.putIfAbsent(tokenId, expiresAt) == null) {
+                byExpiry.add(new Revocation(expiresAt, tokenId));
+            }
+            bloom.put(tokenId);
+        }
+    }
+
+    private void rebuildBloom() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        bloom = rebuilt;
+        expiredSinceRebuild = 0;
+    }
+
+    private record Revocation(Instant expiresAt, String tokenId) implements Comparable<Revocation> {
+
+        @Override
+        public int compareTo(Revocation other) {
+            int byTime = expiresAt.compareTo(other.expiresAt);
+            return byTime != 0 ? byTime : tokenId.compareTo(other.tokenId);
+        }
+    }
+}
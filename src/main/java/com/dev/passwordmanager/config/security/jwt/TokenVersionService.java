@@ -0,0 +1,62 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.UserRepository;
+import com.dev.passwordmanager.utils.BoundedCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Versión de tokens vigente por usuario. Los JWT llevan la versión con la que se
+ * emitieron y solo se aceptan si coincide con la actual; subirla revoca de golpe
+ * todos los tokens anteriores del usuario.
+ *
+ * Las versiones se guardan en una caché acotada: en el camino normal validar un token
+ * no consulta la base de datos. En esta instancia la revocación es inmediata; en las
+ * demás tarda como mucho el TTL de la caché.
+ */
+@Service
+public class TokenVersionService {
+
+    private final UserRepository userRepository;
+    private final BoundedCache<Long, Integer> cache;
+
+    public TokenVersionService(UserRepository userRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${jwt.version-cache.max-size:10000}") int maxSize,
+                               @Value("${jwt.version-cache.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = new BoundedCache<>(maxSize, ttl);
+        this.cache.bindTo(meterRegistry, "jwt.version.cache");
+    }
+
+    // false también si el usuario ya no existe
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = cache.get(userId, id -> userRepository.findTokenVersionById(id).orElse(null));
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Invalida los tokens emitidos hasta ahora. Solo modifica la entidad: el llamador
+     * la guarda dentro de su transacción.
+     */
+    public void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        Long userId = user.getId();
+        cache.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Una petición concurrente pudo cachear la versión anterior antes del commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.dev.passwordmanager.controller;
 
+import com.dev.passwordmanager.config.security.AuthThrottle;
+import com.dev.passwordmanager.config.security.UserSecurity;
 import com.dev.passwordmanager.dto.auth.AuthDTO;
 import com.dev.passwordmanager.dto.auth.VerificationDTO;
+import com.dev.passwordmanager.exception.ServiceOverloadedException;
 import com.dev.passwordmanager.model.User;
 import com.dev.passwordmanager.repository.UserRepository;
 import com.dev.passwordmanager.service.AuthService;
@@ -12,13 +15,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -29,9 +37,11 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+    private static final String BEARER_PREFIX = "Bearer ";
     private final AuthService authService;
     private final EmailVerificationService emailVerificationService;
     private final UserRepository userRepository;
+    private final AuthThrottle authThrottle;
 
     @Operation(
             summary = "Registrar nuevo usuario",
@@ -41,7 +51,8 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "Registro exitoso",
                     content = @Content(schema = @Schema(implementation = AuthDTO.AuthResponse.class))),
             @ApiResponse(responseCode = "400", description = "Datos inválidos"),
-            @ApiResponse(responseCode = "409", description = "El email ya está registrado")
+            @ApiResponse(responseCode = "409", description = "El email ya está registrado"),
+            @ApiResponse(responseCode = "503", description = "Demasiadas solicitudes; reintentar tras Retry-After")
     })
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody AuthDTO.RegisterRequest request) {
@@ -49,6 +60,9 @@ public class AuthController {
             log.info("Recibida solicitud de registro para: {}", request.getEmail());
             AuthDTO.AuthResponse response = authService.register(request);
             return ResponseEntity.ok(response);
+        } catch (ServiceOverloadedException e) {
+            // 503 con Retry-After desde GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             log.error("Error en el registro", e);
             return ResponseEntity
@@ -64,14 +78,26 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login exitoso",
                     content = @Content(schema = @Schema(implementation = AuthDTO.AuthResponse.class))),
-            @ApiResponse(responseCode = "401", description = "Credenciales inválidas")
+            @ApiResponse(responseCode = "401", description = "Credenciales inválidas"),
+            @ApiResponse(responseCode = "429", description = "Demasiados intentos desde esta IP o para esta cuenta"),
+            @ApiResponse(responseCode = "503", description = "Demasiadas solicitudes; reintentar tras Retry-After")
     })
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody AuthDTO.LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody AuthDTO.LoginRequest request,
+                                   HttpServletRequest httpRequest) {
+        // 429 antes de tocar BCrypt o la base de datos
+        authThrottle.checkLogin(request.getEmail(), httpRequest.getRemoteAddr());
         try {
-            AuthDTO.AuthResponse response = authService.login(request);
+            AuthDTO.AuthResponse response = authService.login(request,
+                    httpRequest.getHeader(HttpHeaders.USER_AGENT), httpRequest.getRemoteAddr());
+            authThrottle.loginSucceeded(request.getEmail());
             return ResponseEntity.ok(response);
+        } catch (ServiceOverloadedException e) {
+            // 503 con Retry-After desde GlobalExceptionHandler
+            authThrottle.loginAborted(request.getEmail());
+            throw e;
         } catch (Exception e) {
+            authThrottle.loginFailed(request.getEmail());
             log.error("Error en el login", e);
             return ResponseEntity
                     .badRequest()
@@ -79,6 +105,58 @@ public class AuthController {
         }
     }
 
+    @Operation(
+            summary = "Renovar token",
+            description = "Canjea un refresh token de un solo uso por un JWT nuevo y el siguiente refresh token"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tokens renovados",
+                    content = @Content(schema = @Schema(implementation = AuthDTO.AuthResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token inválido, caducado, revocado o reutilizado")
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody AuthDTO.RefreshRequest request) {
+        try {
+            return ResponseEntity.ok(authService.refresh(request));
+        } catch (BadCredentialsException e) {
+            // 401 para que el cliente sepa que debe volver a iniciar sesión
+            return ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiError(e.getMessage()));
+        }
+    }
+
+    @Operation(
+            summary = "Cerrar sesión",
+            description = "Revoca el JWT de la petición y, si se envía, el refresh token de la sesión"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Sesión cerrada"),
+            @ApiResponse(responseCode = "401", description = "No autorizado")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+            @RequestBody(required = false) AuthDTO.LogoutRequest request) {
+        authService.logout(authorization.substring(BEARER_PREFIX.length()),
+                request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "Cerrar sesión en todos los dispositivos",
+            description = "Invalida todos los JWT y refresh tokens emitidos hasta ahora para el usuario"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Sesiones cerradas"),
+            @ApiResponse(responseCode = "401", description = "No autorizado")
+    })
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutEverywhere(@AuthenticationPrincipal UserSecurity principal) {
+        authService.logoutEverywhere(principal.getId());
+        return ResponseEntity.noContent().build();
+    }
+
 /*    @PostMapping("/verify-email")
     public ResponseEntity<VerificationDTO.VerificationResponse> verifyCode(
             @Valid @RequestBody VerificationDTO.CodeVerificationRequest request) {
@@ -107,7 +185,10 @@ public class AuthController {
     }
 
     @PostMapping("/resend-code")
-    public ResponseEntity<?> resendVerificationCode(@Valid @RequestBody VerificationDTO.ResendCodeRequest request) {
+    public ResponseEntity<?> resendVerificationCode(@Valid @RequestBody VerificationDTO.ResendCodeRequest request,
+                                                    HttpServletRequest httpRequest) {
+        // Cada reenvío es un email real
+        authThrottle.checkResendCode(request.getEmail(), httpRequest.getRemoteAddr());
         try {
             User user = authService.findUserByEmail(request.getEmail())
                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
@@ -1,5 +1,6 @@
 package com.dev.passwordmanager.controller;
 import com.dev.passwordmanager.dto.category.CategoryDTO;
+import com.dev.passwordmanager.config.security.UserSecurity;
 import com.dev.passwordmanager.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,7 +10,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -37,9 +38,8 @@ public class CategoryController {
     @PostMapping
     public ResponseEntity<CategoryDTO> createCategory(
             @Valid @RequestBody CategoryDTO categoryDTO,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        return ResponseEntity.ok(categoryService.createCategory(categoryDTO, userEmail));
+            @AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(categoryService.createCategory(categoryDTO, principal.getId()));
     }
 
     @Operation(
@@ -51,9 +51,8 @@ public class CategoryController {
             @ApiResponse(responseCode = "401", description = "No autorizado")
     })
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories(Authentication authentication) {
-        String userEmail = authentication.getName();
-        return ResponseEntity.ok(categoryService.getUserCategories(userEmail));
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(@AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(categoryService.getUserCategories(principal.getId()));
     }
 
     @Operation(
@@ -70,9 +69,8 @@ public class CategoryController {
     public ResponseEntity<CategoryDTO> updateCategory(
             @PathVariable Long id,
             @Valid @RequestBody CategoryDTO categoryDTO,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        return ResponseEntity.ok(categoryService.updateCategory(id, categoryDTO, userEmail));
+            @AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(categoryService.updateCategory(id, categoryDTO, principal.getId()));
     }
 
     @Operation(
@@ -87,9 +85,8 @@ public class CategoryController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCategory(
             @PathVariable Long id,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        categoryService.deleteCategory(id, userEmail);
+            @AuthenticationPrincipal UserSecurity principal) {
+        categoryService.deleteCategory(id, principal.getId());
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,33 @@
+package com.dev.passwordmanager.controller;
+
+import com.dev.passwordmanager.config.security.jwt.JwtService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Autenticación", description = "API de autenticación y registro")
+public class JwksController {
+
+    private final JwtService jwtService;
+
+    @Operation(
+            summary = "Claves públicas de firma",
+            description = "JWK Set con las claves con las que se pueden verificar los JWT emitidos, identificadas por kid"
+    )
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getKeySet() {
+        // Los verificadores pueden cachearlo; una clave nueva se publica antes de empezar a firmar con ella
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(jwtService.getPublicKeySet());
+    }
+}
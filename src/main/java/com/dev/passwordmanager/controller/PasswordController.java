@@ -1,7 +1,11 @@
 package com.dev.passwordmanager.controller;
 
+import com.dev.passwordmanager.dto.password.ImportReportDTO;
 import com.dev.passwordmanager.dto.password.PasswordEntryDTO;
+import com.dev.passwordmanager.config.security.UserSecurity;
 import com.dev.passwordmanager.service.PasswordService;
+import com.dev.passwordmanager.service.VaultExportService;
+import com.dev.passwordmanager.service.VaultImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -9,10 +13,16 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -23,7 +33,11 @@ import java.util.List;
 @SecurityRequirement(name = "Bearer Authentication")
 public class PasswordController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final PasswordService passwordService;
+    private final VaultExportService vaultExportService;
+    private final VaultImportService vaultImportService;
 
     @Operation(
             summary = "Crear contraseña",
@@ -37,35 +51,87 @@ public class PasswordController {
     @PostMapping
     public ResponseEntity<PasswordEntryDTO.Response> createPassword(
             @Valid @RequestBody PasswordEntryDTO passwordDTO,
-            Authentication authentication) {
-        return ResponseEntity.ok(passwordService.createPassword(passwordDTO, authentication.getName()));
+            @AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(passwordService.createPassword(passwordDTO, principal.getId()));
     }
 
     @Operation(
             summary = "Obtener contraseñas",
-            description = "Obtiene todas las contraseñas del usuario con filtros opcionales"
+            description = "Obtiene las contraseñas del usuario ordenadas por nombre, con filtros opcionales. " +
+                    "Sin limit devuelve todas; con limit pagina por cursor y, si hay más resultados, la " +
+                    "cabecera X-Next-Cursor trae el cursor de la página siguiente"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de contraseñas obtenida exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Límite o cursor no válidos"),
             @ApiResponse(responseCode = "401", description = "No autorizado")
     })
     @GetMapping
     public ResponseEntity<List<PasswordEntryDTO.Response>> getAllPasswords(
-            Authentication authentication,
+            @AuthenticationPrincipal UserSecurity principal,
             @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) String search) {
-        return ResponseEntity.ok(passwordService.getUserPasswords(
-                authentication.getName(),
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        PasswordEntryDTO.Page page = passwordService.getUserPasswords(
+                principal.getId(),
                 categoryId,
-                search
-        ));
+                search,
+                limit,
+                cursor
+        );
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    @Operation(
+            summary = "Exportar contraseñas",
+            description = "Descarga la bóveda completa del usuario, con las contraseñas descifradas, en JSON o CSV"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación generada exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado"),
+            @ApiResponse(responseCode = "401", description = "No autorizado")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPasswords(
+            @AuthenticationPrincipal UserSecurity principal,
+            @RequestParam(defaultValue = "json") String format) {
+        VaultExportService.Format exportFormat = VaultExportService.Format.from(format);
+        Long userId = principal.getId();
+        StreamingResponseBody body = outputStream -> vaultExportService.export(userId, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"passwords." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Importar contraseñas",
+            description = "Importa un CSV exportado de Chrome, Firefox, Bitwarden o de esta aplicación"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación procesada; el informe incluye las filas con error"),
+            @ApiResponse(responseCode = "400", description = "Archivo vacío o sin columnas de usuario y contraseña"),
+            @ApiResponse(responseCode = "401", description = "No autorizado")
+    })
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReportDTO> importPasswords(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserSecurity principal) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(vaultImportService.importCsv(principal.getId(), input));
+        }
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<PasswordEntryDTO.Response> getPassword(
             @PathVariable Long id,
-            Authentication authentication) {
-        return ResponseEntity.ok(passwordService.getPassword(id, authentication.getName()));
+            @AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(passwordService.getPassword(id, principal.getId()));
     }
 
     @Operation(
@@ -80,8 +146,8 @@ public class PasswordController {
     @GetMapping("/{id}/decrypt")
     public ResponseEntity<String> getDecryptedPassword(
             @PathVariable Long id,
-            Authentication authentication) {
-        return ResponseEntity.ok(passwordService.getDecryptedPassword(id, authentication.getName()));
+            @AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(passwordService.getDecryptedPassword(id, principal.getId()));
     }
 
     @Operation(
@@ -98,8 +164,8 @@ public class PasswordController {
     public ResponseEntity<PasswordEntryDTO.Response> updatePassword(
             @PathVariable Long id,
             @Valid @RequestBody PasswordEntryDTO passwordDTO,
-            Authentication authentication) {
-        return ResponseEntity.ok(passwordService.updatePassword(id, passwordDTO, authentication.getName()));
+            @AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(passwordService.updatePassword(id, passwordDTO, principal.getId()));
     }
 
     @Operation(
@@ -114,8 +180,8 @@ public class PasswordController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePassword(
             @PathVariable Long id,
-            Authentication authentication) {
-        passwordService.deletePassword(id, authentication.getName());
+            @AuthenticationPrincipal UserSecurity principal) {
+        passwordService.deletePassword(id, principal.getId());
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
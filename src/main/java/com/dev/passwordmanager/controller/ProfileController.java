@@ -4,6 +4,7 @@ import com.dev.passwordmanager.dto.profile.ChangePasswordRequest;
 import com.dev.passwordmanager.dto.profile.ProfileResponse;
 import com.dev.passwordmanager.dto.profile.UpdateRequest;
 import com.dev.passwordmanager.model.Photo;
+import com.dev.passwordmanager.config.security.UserSecurity;
 import com.dev.passwordmanager.service.ImageService;
 import com.dev.passwordmanager.service.ProfileService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,16 +12,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -42,8 +48,8 @@ public class ProfileController {
             @ApiResponse(responseCode = "401", description = "No autorizado")
     })
     @GetMapping
-    public ResponseEntity<ProfileResponse> getProfile(Authentication authentication) {
-        return ResponseEntity.ok(profileService.getProfile(authentication.getName()));
+    public ResponseEntity<ProfileResponse> getProfile(@AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(profileService.getProfile(principal.getId()));
     }
 
     @Operation(
@@ -58,8 +64,8 @@ public class ProfileController {
     @PutMapping
     public ResponseEntity<ProfileResponse> updateProfile(
             @Valid @RequestBody UpdateRequest request,
-            Authentication authentication) {
-        return ResponseEntity.ok(profileService.updateProfile(request, authentication.getName()));
+            @AuthenticationPrincipal UserSecurity principal) {
+        return ResponseEntity.ok(profileService.updateProfile(request, principal.getId()));
     }
 
     @Operation(
@@ -74,8 +80,8 @@ public class ProfileController {
     @PostMapping("/change-password")
     public ResponseEntity<Void> changePassword(
             @Valid @RequestBody ChangePasswordRequest request,
-            Authentication authentication) {
-        profileService.changePassword(request, authentication.getName());
+            @AuthenticationPrincipal UserSecurity principal) {
+        profileService.changePassword(request, principal.getId());
         return ResponseEntity.ok().build();
     }
 
@@ -91,36 +97,85 @@ public class ProfileController {
     @PostMapping(value = "/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> updateProfileImage(
             @RequestParam("image") MultipartFile file,
-            Authentication authentication) throws IOException, SQLException {
-        Photo photo = imageService.savePhoto(file, authentication.getName());
+            @AuthenticationPrincipal UserSecurity principal) throws IOException, SQLException {
+        Photo photo = imageService.savePhoto(file, principal.getId());
         return ResponseEntity.ok(Map.of(
                 "message", "Imagen actualizada correctamente",
                 "photoId", photo.getId()
         ));
     }
 
+    @Operation(
+            summary = "Obtener imagen",
+            description = "Devuelve la imagen con su tipo original; admite cabecera Range"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imagen completa"),
+            @ApiResponse(responseCode = "206", description = "Rango solicitado"),
+            @ApiResponse(responseCode = "416", description = "Rango fuera de la imagen")
+    })
     @GetMapping("/image/{id}")
-    public ResponseEntity<byte[]> getImage(@PathVariable Long id) throws SQLException {
-        byte[] imageData = imageService.getImageData(id);
-        return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_JPEG)
-                .body(imageData);
+    public void getImage(@PathVariable Long id,
+                         @RequestHeader HttpHeaders requestHeaders,
+                         HttpServletResponse response) throws IOException, SQLException {
+        writeImage(id, requestHeaders, response);
     }
 
     @GetMapping("/image")
-    public ResponseEntity<?> getProfileImage(Authentication authentication) throws SQLException {
-        byte[] imageData = imageService.getUserPhoto(authentication.getName());
-        if (imageData == null) {
-            return ResponseEntity.notFound().build();
+    public void getProfileImage(@AuthenticationPrincipal UserSecurity principal,
+                                @RequestHeader HttpHeaders requestHeaders,
+                                HttpServletResponse response) throws IOException, SQLException {
+        Long photoId = imageService.getUserPhotoId(principal.getId());
+        if (photoId == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
-        return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_JPEG)
-                .body(imageData);
+        writeImage(photoId, requestHeaders, response);
+    }
+
+    // Escribe la imagen (o el rango pedido) directamente en la respuesta, sin copiarla a un byte[]
+    private void writeImage(Long photoId, HttpHeaders requestHeaders, HttpServletResponse response)
+            throws IOException, SQLException {
+        ImageService.ImageInfo image = imageService.getImageInfo(photoId);
+        long length = image.length();
+        long start = 0;
+        long count = length;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(image.contentType());
+
+        // Una cabecera Range mal formada o con varios rangos se ignora y se sirve la imagen completa
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        if (ranges.size() == 1) {
+            long end;
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                end = -1;
+            }
+            if (length == 0 || end < start) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            count = end - start + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        response.setContentLengthLong(count);
+        imageService.writeImage(photoId, start, count, response.getOutputStream());
     }
 
     @DeleteMapping("/image")
-    public ResponseEntity<?> deleteProfileImage(Authentication authentication) {
-        imageService.deletePhoto(authentication.getName());
+    public ResponseEntity<?> deleteProfileImage(@AuthenticationPrincipal UserSecurity principal) {
+        imageService.deletePhoto(principal.getId());
         return ResponseEntity.ok(Map.of("message", "Imagen eliminada correctamente"));
     }
 
@@ -39,6 +39,22 @@ public class AuthDTO {
 
     }
 
+    @Data
+    public static class RefreshRequest {
+
+        @NotBlank(message = "El refresh token es obligatorio")
+        private String refreshToken;
+
+    }
+
+    @Data
+    public static class LogoutRequest {
+
+        // Opcional: si llega, también se revoca el refresh token de la sesión
+        private String refreshToken;
+
+    }
+
     // respuesta
     @Data
     @Builder
@@ -47,6 +63,8 @@ public class AuthDTO {
     public static class AuthResponse {
         @Schema(description = "Token JWT para autenticación")
         private String token;
+        @Schema(description = "Token de un solo uso para obtener un nuevo JWT en /api/auth/refresh")
+        private String refreshToken;
         @Schema(description = "Email del usuario autenticado")
         private String email;
         @Schema(description = "Nombre del usuario autenticado")
@@ -54,8 +72,9 @@ public class AuthDTO {
         private User user;
         private boolean requiresVerification;
 
-        public AuthResponse(String token, String email, String name, boolean requiresVerification) {
+        public AuthResponse(String token, String refreshToken, String email, String name, boolean requiresVerification) {
             this.token = token;
+            this.refreshToken = refreshToken;
             this.email = email;
             this.name = name;
             this.requiresVerification = requiresVerification;
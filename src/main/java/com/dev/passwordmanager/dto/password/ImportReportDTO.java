@@ -0,0 +1,28 @@
+package com.dev.passwordmanager.dto.password;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReportDTO {
+
+    private int totalRows;
+    private int imported;
+    private int failed;
+    private int categoriesCreated;
+    private long durationMillis;
+    private double rowsPerSecond;
+    private List<RowError> errors = new ArrayList<>();
+    // true si hubo más errores de los que se devuelven
+    private boolean errorsTruncated;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -3,6 +3,9 @@ package com.dev.passwordmanager.dto.password;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -27,8 +30,11 @@ public class PasswordEntryDTO {
 
     }
 
-    // DTO para respuestas (sin mostrar la contraseña)
+    // DTO para respuestas (sin mostrar la contraseña). El constructor completo lo usan las
+    // consultas de proyección de PasswordEntryRepository: no cambiar el orden de los campos
     @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class Response {
         private Long id;
         private String name;
@@ -38,4 +44,12 @@ public class PasswordEntryDTO {
         private Long categoryId;
         private String categoryName;
     }
+
+    // Página de resultados; nextCursor es null en la última página
+    @Data
+    @AllArgsConstructor
+    public static class Page {
+        private List<Response> items;
+        private String nextCursor;
+    }
 }
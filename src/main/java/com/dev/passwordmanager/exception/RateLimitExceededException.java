@@ -0,0 +1,18 @@
+package com.dev.passwordmanager.exception;
+
+import java.time.Duration;
+
+// Demasiados intentos de un mismo cliente o cuenta; se puede reintentar pasado retryAfter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
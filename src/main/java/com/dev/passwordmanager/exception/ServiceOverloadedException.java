@@ -0,0 +1,18 @@
+package com.dev.passwordmanager.exception;
+
+import java.time.Duration;
+
+// Trabajo rechazado por falta de capacidad; el cliente puede reintentar pasado retryAfter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
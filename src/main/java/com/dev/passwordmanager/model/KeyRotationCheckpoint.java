@@ -0,0 +1,38 @@
+package com.dev.passwordmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso del re-cifrado hacia una versión de clave. Se actualiza en la misma
+ * transacción que cada lote, de modo que tras un reinicio se continúa desde el último id.
+ */
+@Data
+@Entity
+@Table(name = "key_rotation_checkpoints")
+public class KeyRotationCheckpoint {
+
+    @Id
+    private Integer targetKeyVersion;
+
+    @Column(nullable = false)
+    private long lastEntryId;
+
+    @Column(nullable = false)
+    private long rowsRotated;
+
+    // Filas que no se pudieron descifrar y se omitieron; sus ids quedan en el log
+    @Column(name = "rows_failed", nullable = false, columnDefinition = "bigint default 0 not null")
+    private long rowsFailed;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    // Revisión del recorrido con la que se completó; una revisión nueva obliga a repetirlo
+    @Column(name = "format_version")
+    private Integer revision;
+
+    private LocalDateTime updatedAt;
+}
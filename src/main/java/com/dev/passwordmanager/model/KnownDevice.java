@@ -0,0 +1,50 @@
+package com.dev.passwordmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Navegador y red desde los que un usuario ha iniciado sesión. La huella identifica el
+ * navegador (familia, versión mayor y sistema); la red se guarda aparte. Un login con
+ * un navegador nuevo, o desde una red que el usuario no había usado, genera un aviso.
+ */
+@Data
+@Entity
+@Table(name = "known_devices", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_known_devices_user_fingerprint_network", columnNames = {"user_id", "fingerprint", "network"})
+}, indexes = {
+        @Index(name = "idx_known_devices_last_seen", columnList = "last_seen_at")
+})
+public class KnownDevice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // SHA-256 del User-Agent normalizado, ver DeviceRegistry.normalizeUserAgent
+    @Column(nullable = false, length = 32)
+    private byte[] fingerprint;
+
+    // Red de origen: /24 en IPv4, /48 en IPv6; vacía si no se conoce la IP
+    @Column(nullable = false, columnDefinition = "varchar(64) default '' not null")
+    private String network;
+
+    @Column(name = "user_agent")
+    private String userAgent;
+
+    @Column(name = "ip_address", length = 45)
+    private String ipAddress;
+
+    @Column(name = "first_seen_at", nullable = false)
+    private LocalDateTime firstSeenAt;
+
+    // Se actualiza en diferido, por lotes, no en cada login
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,52 @@
+package com.dev.passwordmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email pendiente de envío. Se inserta en la misma transacción que lo origina y lo
+ * envía después MailOutboxService.dispatch; al enviarse la fila se borra.
+ */
+@Data
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_next_attempt", columnList = "next_attempt_at")
+})
+public class MailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 4000)
+    private String body;
+
+    // Alternativa HTML del mismo contenido; null si solo hay texto
+    @Column(name = "html_body", length = 20000)
+    private String htmlBody;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Próximo intento; cada fallo lo aleja con backoff exponencial
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Agotados los reintentos deja de enviarse; la fila queda para revisarla
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+}
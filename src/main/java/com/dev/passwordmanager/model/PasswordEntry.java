@@ -5,23 +5,45 @@ import lombok.Data;
 
 @Entity
 @Data
-@Table(name = "password_entries")
+@Table(name = "password_entries", indexes = {
+        @Index(name = "idx_password_entries_user_name", columnList = "user_id, name, id"),
+        @Index(name = "idx_password_entries_username_index", columnList = "user_id, username_index"),
+        @Index(name = "idx_password_entries_website_index", columnList = "user_id, website_index"),
+        @Index(name = "idx_password_entries_website_domain_index", columnList = "user_id, website_domain_index")
+})
 public class PasswordEntry {
 
+    // Secuencia con asignación por bloques: Hibernate reserva 50 ids por consulta y puede
+    // agrupar los inserts en lotes JDBC, cosa que IDENTITY impide
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "password_entries_seq")
+    @SequenceGenerator(name = "password_entries_seq", sequenceName = "password_entries_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String name;
     @Column(nullable = false)
     private String username;
-    @Column(nullable = false)
+    // Formato de texto anterior (Base64); se vacía al migrar a password_cipher
     private String password;
 
+    // Formato binario versionado, ver VaultEncryptionService
+    @Column(name = "password_cipher", length = 1024)
+    private byte[] passwordCipher;
+
     private String website;
 
     private String notes;
 
+    // Índices ciegos (HMAC) para buscar por igualdad con un índice; username y website siguen en claro, ver BlindIndexService
+    @Column(name = "username_index", length = 32)
+    private String usernameIndex;
+
+    @Column(name = "website_index", length = 32)
+    private String websiteIndex;
+
+    @Column(name = "website_domain_index", length = 32)
+    private String websiteDomainIndex;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
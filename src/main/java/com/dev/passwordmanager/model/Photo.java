@@ -19,6 +19,9 @@ public class Photo {
     private String fileName;
     private String fileType;
 
+    // Tamaño en bytes, para Content-Length y Range sin leer la imagen; null en fotos anteriores
+    private Long fileSize;
+
     @OneToOne(mappedBy = "photo")
     private User user;
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.dev.passwordmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Refresh token de un solo uso. Cada canje crea el siguiente de la misma familia;
+ * canjear dos veces el mismo token revoca la familia entera.
+ *
+ * Solo se guarda el SHA-256 del token: el valor en claro lo tiene únicamente el cliente.
+ */
+@Data
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 32)
+    private byte[] tokenHash;
+
+    // Comparten familia todos los tokens que descienden del mismo login
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // Versión de tokens del usuario al emitirlo; si ha cambiado, el token ya no vale
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Null hasta que se canjea
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+}
@@ -0,0 +1,28 @@
+package com.dev.passwordmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Access token revocado antes de caducar (logout). La fila solo hace falta hasta que
+ * el token expira; sirve para reconstruir la lista en memoria al arrancar y para
+ * que las demás instancias se enteren de la revocación.
+ */
+@Data
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Claim jti del token
+    @Column(name = "token_id", nullable = false, unique = true, length = 36)
+    private String tokenId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
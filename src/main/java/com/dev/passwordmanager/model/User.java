@@ -24,8 +24,16 @@ public class User {
     private String profileImage;
     private boolean enabled = false;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    // Va en cada JWT; subirla invalida los tokens emitidos antes (cambio de contraseña, baja...)
+    @Builder.Default
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0 not null")
+    private int tokenVersion = 0;
+
+    // Perezosa: el usuario se carga en cada petición autenticada y la foto solo la usa ImageService
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "photo_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Photo photo;
 
     public void removeUserPhoto() {
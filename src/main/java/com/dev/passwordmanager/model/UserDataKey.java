@@ -0,0 +1,35 @@
+package com.dev.passwordmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clave de datos de un usuario, cifrada (envuelta) con la clave maestra.
+ * Hay una fila por usuario y versión de clave.
+ */
+@Data
+@Entity
+@Table(name = "user_data_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "key_version"}))
+public class UserDataKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "key_version", nullable = false)
+    private int keyVersion;
+
+    // Base64( IV || clave de datos cifrada || tag )
+    @Column(nullable = false, length = 128)
+    private String wrappedKey;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -7,7 +7,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "verification_codes")
+@Table(name = "verification_codes", indexes = {
+        @Index(name = "idx_verification_codes_email_code", columnList = "email, code"),
+        @Index(name = "idx_verification_codes_expiry_date", columnList = "expiryDate")
+})
 public class VerificationCode {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -5,10 +5,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByUserId(Long userId);
     boolean existsByNameAndUserId(String name, Long userId);
+
+    // Búsquedas limitadas al dueño: una categoría de otro usuario se trata como inexistente
+    Optional<Category> findByIdAndUserId(Long id, Long userId);
 }
 
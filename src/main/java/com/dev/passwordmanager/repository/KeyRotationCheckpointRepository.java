@@ -0,0 +1,20 @@
+package com.dev.passwordmanager.repository;
+
+import com.dev.passwordmanager.model.KeyRotationCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface KeyRotationCheckpointRepository extends JpaRepository<KeyRotationCheckpoint, Integer> {
+
+    // select ... for update: serializa los lotes de la rotación entre instancias
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from KeyRotationCheckpoint c where c.targetKeyVersion = :targetKeyVersion")
+    Optional<KeyRotationCheckpoint> findForUpdate(@Param("targetKeyVersion") Integer targetKeyVersion);
+}
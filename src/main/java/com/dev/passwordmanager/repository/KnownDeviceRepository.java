@@ -0,0 +1,26 @@
+package com.dev.passwordmanager.repository;
+
+import com.dev.passwordmanager.model.KnownDevice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface KnownDeviceRepository extends JpaRepository<KnownDevice, Long> {
+
+    @Query("select d from KnownDevice d where d.user.id in :userIds")
+    List<KnownDevice> findByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Borrado por lotes para no mantener bloqueos largos sobre la tabla
+    @Modifying
+    @Query(value = "delete from known_devices where id in " +
+            "(select id from known_devices where last_seen_at < :cutoff order by id limit :limit)",
+            nativeQuery = true)
+    int deleteSeenBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,28 @@
+package com.dev.passwordmanager.repository;
+
+import com.dev.passwordmanager.model.MailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    @Query("select m from MailOutbox m where m.failedAt is null and m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<MailOutbox> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Reserva la fila hasta leaseUntil; si otra instancia la reservó antes, devuelve 0
+    @Modifying
+    @Query("update MailOutbox m set m.nextAttemptAt = :leaseUntil " +
+            "where m.id = :id and m.nextAttemptAt = :expected and m.failedAt is null")
+    int claim(@Param("id") Long id, @Param("expected") LocalDateTime expected,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByFailedAtIsNull();
+}
@@ -1,14 +1,111 @@
 package com.dev.passwordmanager.repository;
 
+import com.dev.passwordmanager.dto.password.PasswordEntryDTO;
 import com.dev.passwordmanager.model.PasswordEntry;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface PasswordEntryRepository extends JpaRepository<PasswordEntry, Long> {
     List<PasswordEntry> findByUserId(Long userId);
+
+    // Entrada del usuario con su categoría en una sola consulta; vacío si no existe o pertenece
+    // a otro usuario, así la comprobación de propiedad no cuesta lecturas extra
+    @EntityGraph(attributePaths = "category")
+    Optional<PasswordEntry> findByIdAndUserId(Long id, Long userId);
     List<PasswordEntry> findByUserIdAndCategoryId(Long userId, Long categoryId);
     List<PasswordEntry> findByUserIdAndNameContainingIgnoreCase(Long userId, String name);
-}
\ No newline at end of file
+
+    // Lecturas para la API: proyectan directamente a PasswordEntryDTO.Response, con el nombre
+    // de la categoría en la misma consulta, sin cargar entidades ni asociaciones perezosas
+    String RESPONSE_SELECT = "select new com.dev.passwordmanager.dto.password.PasswordEntryDTO$Response(" +
+            "e.id, e.name, e.username, e.website, e.notes, c.id, c.name) " +
+            "from PasswordEntry e left join e.category c ";
+
+    // Paginación por clave (keyset) en orden (name, id): cada página continúa tras la última
+    // fila de la anterior usando el índice (user_id, name, id), sin OFFSET. La primera página
+    // usa ("", 0) como punto de partida, ya que el nombre nunca está vacío
+    String KEYSET = "(e.name > :afterName or (e.name = :afterName and e.id > :afterId))";
+
+    @Query(RESPONSE_SELECT + "where e.user.id = :userId and " + KEYSET + " order by e.name, e.id")
+    List<PasswordEntryDTO.Response> findPage(@Param("userId") Long userId,
+                                             @Param("afterName") String afterName,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "where e.user.id = :userId and c.id = :categoryId and " + KEYSET +
+            " order by e.name, e.id")
+    List<PasswordEntryDTO.Response> findPageByCategory(@Param("userId") Long userId,
+                                                       @Param("categoryId") Long categoryId,
+                                                       @Param("afterName") String afterName,
+                                                       @Param("afterId") Long afterId,
+                                                       Pageable pageable);
+
+    // Nombre por coincidencia parcial; usuario, sitio y dominio por igualdad de índice ciego
+    @Query(RESPONSE_SELECT + "where e.user.id = :userId and (" +
+            "lower(e.name) like lower(concat('%', :term, '%')) " +
+            "or e.usernameIndex = :usernameToken " +
+            "or e.websiteIndex = :websiteToken " +
+            "or e.websiteDomainIndex = :domainToken) and " + KEYSET + " order by e.name, e.id")
+    List<PasswordEntryDTO.Response> searchPage(@Param("userId") Long userId,
+                                               @Param("term") String term,
+                                               @Param("usernameToken") String usernameToken,
+                                               @Param("websiteToken") String websiteToken,
+                                               @Param("domainToken") String domainToken,
+                                               @Param("afterName") String afterName,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "where e.id = :id and e.user.id = :userId")
+    Optional<PasswordEntryDTO.Response> findResponseByIdAndUserId(@Param("id") Long id,
+                                                                  @Param("userId") Long userId);
+
+    // Lectura en streaming para la exportación: el driver trae las filas de 500 en 500 y nunca
+    // se materializa la bóveda completa. Requiere una transacción abierta mientras se consume
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from PasswordEntry e left join fetch e.category where e.user.id = :userId order by e.id")
+    Stream<PasswordEntry> streamByUserId(@Param("userId") Long userId);
+
+    // Recorrido por lotes en orden de id (keyset) para trabajos en segundo plano
+    List<PasswordEntry> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Las dos actualizaciones siguientes solo escriben si nadie ha cambiado la contraseña desde que se leyó
+    @Modifying
+    @Query("update PasswordEntry e set e.passwordCipher = :newValue where e.id = :id and e.passwordCipher = :expectedValue")
+    int compareAndSetPasswordCipher(@Param("id") Long id,
+                                    @Param("expectedValue") byte[] expectedValue,
+                                    @Param("newValue") byte[] newValue);
+
+    @Modifying
+    @Query("update PasswordEntry e set e.usernameIndex = :usernameIndex, e.websiteIndex = :websiteIndex, " +
+            "e.websiteDomainIndex = :websiteDomainIndex " +
+            "where e.id = :id and e.usernameIndex is null and e.websiteIndex is null")
+    int updateBlindIndexes(@Param("id") Long id,
+                           @Param("usernameIndex") String usernameIndex,
+                           @Param("websiteIndex") String websiteIndex,
+                           @Param("websiteDomainIndex") String websiteDomainIndex);
+
+    @Modifying
+    @Query("update PasswordEntry e set e.passwordCipher = :newValue, e.password = null " +
+            "where e.id = :id and e.passwordCipher is null and e.password = :expectedValue")
+    int migrateLegacyPassword(@Param("id") Long id,
+                              @Param("expectedValue") String expectedValue,
+                              @Param("newValue") byte[] newValue);
+}
@@ -0,0 +1,41 @@
+package com.dev.passwordmanager.repository;
+
+import com.dev.passwordmanager.model.RefreshToken;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // El usuario hace falta para emitir el nuevo access token
+    @EntityGraph(attributePaths = "user")
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+    // Solo un canje concurrente puede ganar: los demás ven 0 filas y cuentan como reutilización
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :usedAt where t.id = :id and t.usedAt is null")
+    int markUsed(@Param("id") Long id, @Param("usedAt") LocalDateTime usedAt);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") UUID familyId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // Borrado por lotes para no mantener bloqueos largos sobre la tabla
+    @Modifying
+    @Query(value = "delete from refresh_tokens where id in " +
+            "(select id from refresh_tokens where expires_at < :now order by id limit :limit)",
+            nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,26 @@
+package com.dev.passwordmanager.repository;
+
+import com.dev.passwordmanager.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    boolean existsByTokenId(String tokenId);
+
+    // Revocaciones vigentes posteriores a la última leída (el id crece con cada inserción)
+    List<RevokedToken> findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(Long afterId, LocalDateTime now);
+
+    @Modifying
+    @Query(value = "delete from revoked_tokens where id in " +
+            "(select id from revoked_tokens where expires_at < :now order by id limit :limit)",
+            nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
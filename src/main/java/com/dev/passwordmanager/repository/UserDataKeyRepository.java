@@ -0,0 +1,12 @@
+package com.dev.passwordmanager.repository;
+
+import com.dev.passwordmanager.model.UserDataKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserDataKeyRepository extends JpaRepository<UserDataKey, Long> {
+    Optional<UserDataKey> findByUserIdAndKeyVersion(Long userId, int keyVersion);
+}
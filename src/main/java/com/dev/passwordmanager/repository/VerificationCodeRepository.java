@@ -2,12 +2,29 @@ package com.dev.passwordmanager.repository;
 
 import com.dev.passwordmanager.model.VerificationCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VerificationCodeRepository extends JpaRepository<VerificationCode, Long> {
     Optional<VerificationCode> findByEmailAndCodeAndUsedFalse(String email, String code);
-    void deleteByEmailAndUsedTrue(String email);
-}
\ No newline at end of file
+
+    List<VerificationCode> findByEmailAndUsedFalseOrderByIdDesc(String email);
+
+    @Modifying
+    @Query("delete from VerificationCode v where v.id = :id")
+    int deleteOne(@Param("id") Long id);
+
+    // Borrado por lotes para no mantener bloqueos largos sobre la tabla
+    @Modifying
+    @Query(value = "delete from verification_codes where id in " +
+            "(select id from verification_codes where expiry_date < :now or used = true order by id limit :limit)",
+            nativeQuery = true)
+    int deleteExpiredOrUsed(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -1,8 +1,12 @@
 package com.dev.passwordmanager.service;
 
+import com.dev.passwordmanager.config.security.jwt.JwtClaims;
 import com.dev.passwordmanager.config.security.jwt.JwtService;
+import com.dev.passwordmanager.config.security.jwt.TokenDenylist;
+import com.dev.passwordmanager.config.security.jwt.TokenVersionService;
 import com.dev.passwordmanager.config.security.UserSecurity;
 import com.dev.passwordmanager.dto.auth.AuthDTO;
+import com.dev.passwordmanager.exception.ServiceOverloadedException;
 import com.dev.passwordmanager.model.User;
 import com.dev.passwordmanager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +32,10 @@ public class AuthService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailVerificationService emailVerificationService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenDenylist tokenDenylist;
+    private final TokenVersionService tokenVersionService;
+    private final DeviceRegistry deviceRegistry;
 
 
     @Transactional
@@ -54,6 +62,7 @@ public class AuthService {
             // Generar token JWT
             UserSecurity securityUser = new UserSecurity(user);
             String token = jwtService.generateToken(securityUser);
+            String refreshToken = refreshTokenService.issue(user);
 
             // Enviar código de verificación
             try {
@@ -67,18 +76,21 @@ public class AuthService {
             // Crear y retornar respuesta
             return AuthDTO.AuthResponse.builder()
                     .token(token)
+                    .refreshToken(refreshToken)
                     .email(user.getEmail())
                     .name(user.getName())
                     .requiresVerification(true)
                     .build();
 
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error en el registro de usuario", e);
             throw new RuntimeException("Error al registrar usuario: " + e.getMessage());
         }
     }
 
-    public AuthDTO.AuthResponse login(AuthDTO.LoginRequest request) {
+    public AuthDTO.AuthResponse login(AuthDTO.LoginRequest request, String userAgent, String clientIp) {
         try {
             // Usa AuthenticationManager para validar las credenciales
             authenticationManager.authenticate(
@@ -94,19 +106,55 @@ public class AuthService {
             UserSecurity securityUser = new UserSecurity(user);
             String token = jwtService.generateToken(securityUser);
 
-            return createAuthResponse(user, token);
+            // Solo encola el evento; el registro y el aviso se hacen en segundo plano
+            deviceRegistry.recordLogin(user, userAgent, clientIp);
 
+            return createAuthResponse(user, token, refreshTokenService.issue(user));
+
+        } catch (ServiceOverloadedException e) {
+            // No son credenciales inválidas: el cliente debe reintentar
+            throw e;
         } catch (Exception e) {
             throw new BadCredentialsException("Credenciales inválidas");
         }
     }
 
-    private AuthDTO.AuthResponse createAuthResponse(User user, String token) {
+    // Canjea el refresh token por un access token nuevo y el siguiente refresh token
+    public AuthDTO.AuthResponse refresh(AuthDTO.RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        User user = rotation.user();
+        String token = jwtService.generateToken(new UserSecurity(user));
+        return createAuthResponse(user, token, rotation.refreshToken());
+    }
+
+    // Cierra esta sesión: el access token queda revocado hasta que caduque y el refresh token, borrado
+    public void logout(String accessToken, String refreshToken) {
+        JwtClaims claims = jwtService.verify(accessToken);
+        if (claims.tokenId() != null) {
+            tokenDenylist.revoke(claims.tokenId(), claims.expiresAt());
+        }
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revokeFamily(refreshToken);
+        }
+    }
+
+    // Cierra todas las sesiones: la nueva versión invalida cualquier access token emitido antes
+    @Transactional
+    public void logoutEverywhere(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new BadCredentialsException("Usuario no encontrado"));
+        tokenVersionService.revokeTokens(user);
+        userRepository.save(user);
+        refreshTokenService.revokeAll(userId);
+    }
+
+    private AuthDTO.AuthResponse createAuthResponse(User user, String token, String refreshToken) {
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null");
         }
         return new AuthDTO.AuthResponse(
                 token,
+                refreshToken,
                 user.getEmail(),
                 user.getName(),
                 !user.isEnabled()
@@ -0,0 +1,127 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.config.EncryptionProperties;
+import com.dev.passwordmanager.model.PasswordEntry;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Índices ciegos: HMAC-SHA256 truncado de valores normalizados, para buscar por igualdad
+ * en columnas indexadas sin necesidad de leer (ni descifrar) usuario y sitio web.
+ *
+ * El id del usuario y el tipo de índice entran en el HMAC, así que el mismo valor produce
+ * tokens distintos para usuarios distintos y entre columnas.
+ *
+ * Es solo una optimización de búsqueda: username y website siguen guardados en claro
+ * junto a sus índices, así que estos no añaden confidencialidad.
+ */
+@Service
+public class BlindIndexService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int TOKEN_BYTES = 16;
+
+    private final ThreadLocal<Mac> mac;
+
+    public BlindIndexService(EncryptionProperties properties) {
+        SecretKeySpec key = new SecretKeySpec(resolveKey(properties), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 no disponible en esta JVM", e);
+            }
+        });
+    }
+
+    // Recalcula los tres índices de la entrada a partir de sus valores actuales
+    public void index(PasswordEntry passwordEntry, Long userId) {
+        passwordEntry.setUsernameIndex(usernameToken(userId, passwordEntry.getUsername()));
+        passwordEntry.setWebsiteIndex(websiteToken(userId, passwordEntry.getWebsite()));
+        passwordEntry.setWebsiteDomainIndex(domainToken(userId, passwordEntry.getWebsite()));
+    }
+
+    public String usernameToken(Long userId, String username) {
+        return token(userId, "username", normalize(username));
+    }
+
+    public String websiteToken(Long userId, String website) {
+        return token(userId, "website", normalize(website));
+    }
+
+    // Mismo token para "https://www.github.com/login" y "github.com"
+    public String domainToken(Long userId, String website) {
+        return token(userId, "domain", domainOf(website));
+    }
+
+    static String domainOf(String website) {
+        String value = normalize(website);
+        if (value == null) {
+            return null;
+        }
+        String host = null;
+        try {
+            host = URI.create(value.contains("://") ? value : "http://" + value).getHost();
+        } catch (IllegalArgumentException e) {
+            // No es una URI válida: se toma lo anterior a la primera ruta, puerto o consulta
+        }
+        if (host == null) {
+            int schemeEnd = value.indexOf("://");
+            int start = schemeEnd < 0 ? 0 : schemeEnd + 3;
+            int end = start;
+            while (end < value.length() && "/:?#".indexOf(value.charAt(end)) < 0) {
+                end++;
+            }
+            host = value.substring(start, end);
+        }
+        if (host.startsWith("www.")) {
+            host = host.substring(4);
+        }
+        return host.isEmpty() ? null : host;
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private String token(Long userId, String purpose, String normalizedValue) {
+        if (normalizedValue == null) {
+            return null;
+        }
+        Mac instance = mac.get();
+        instance.update((userId + ":" + purpose + ":").getBytes(StandardCharsets.UTF_8));
+        byte[] digest = instance.doFinal(normalizedValue.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, TOKEN_BYTES));
+    }
+
+    private static byte[] resolveKey(EncryptionProperties properties) {
+        if (properties.getBlindIndexKey() != null && !properties.getBlindIndexKey().isBlank()) {
+            return Base64.getDecoder().decode(properties.getBlindIndexKey());
+        }
+        String masterKey = properties.resolveMasterKeys().get(1);
+        if (masterKey == null) {
+            throw new IllegalStateException("Falta encryption.blind-index-key");
+        }
+        try {
+            // Clave derivada: HMAC(master-keys.1, "blind-index")
+            Mac derivation = Mac.getInstance(HMAC_ALGORITHM);
+            derivation.init(new SecretKeySpec(Base64.getDecoder().decode(masterKey), HMAC_ALGORITHM));
+            return derivation.doFinal("blind-index".getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo derivar la clave de índices ciegos", e);
+        }
+    }
+}
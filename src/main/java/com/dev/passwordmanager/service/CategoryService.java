@@ -21,9 +21,8 @@ public class CategoryService {
     private final UserRepository userRepository;
 
     @Transactional
-    public CategoryDTO createCategory(CategoryDTO categoryDTO, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+    public CategoryDTO createCategory(CategoryDTO categoryDTO, Long userId) {
+        User user = userRepository.getReferenceById(userId);
 
         Category category = new Category();
         category.setName(categoryDTO.getName());
@@ -34,26 +33,19 @@ public class CategoryService {
         return convertToDTO(category);
     }
 
-    public List<CategoryDTO> getUserCategories(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-
-        return categoryRepository.findByUserId(user.getId())
+    public List<CategoryDTO> getUserCategories(Long userId) {
+        return categoryRepository.findByUserId(userId)
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     @Transactional
-    public CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO, String userEmail) {
-        Category category = categoryRepository.findById(id)
+    public CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO, Long userId) {
+        // Solo encuentra la categoría si pertenece al usuario
+        Category category = categoryRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
 
-        // Verificar que la categoría pertenece al usuario
-        if (!category.getUser().getEmail().equals(userEmail)) {
-            throw new RuntimeException("No autorizado para modificar esta categoría");
-        }
-
         category.setName(categoryDTO.getName());
         category.setDescription(categoryDTO.getDescription());
 
@@ -62,14 +54,10 @@ public class CategoryService {
     }
 
     @Transactional
-    public void deleteCategory(Long id, String userEmail) {
-        Category category = categoryRepository.findById(id)
+    public void deleteCategory(Long id, Long userId) {
+        Category category = categoryRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
 
-        if (!category.getUser().getEmail().equals(userEmail)) {
-            throw new RuntimeException("No autorizado para eliminar esta categoría");
-        }
-
         categoryRepository.delete(category);
     }
 
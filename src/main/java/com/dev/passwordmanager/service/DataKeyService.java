@@ -0,0 +1,195 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.config.EncryptionProperties;
+import com.dev.passwordmanager.model.UserDataKey;
+import com.dev.passwordmanager.repository.UserDataKeyRepository;
+import com.dev.passwordmanager.utils.BoundedCache;
+import com.dev.passwordmanager.utils.EncryptionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cifrado por sobres: cada usuario tiene una clave de datos propia, guardada envuelta
+ * con la clave maestra. Las claves desenvueltas se mantienen en una caché acotada, de
+ * modo que listar o descifrar muchas entradas de un usuario cuesta un solo desenvoltorio.
+ *
+ * Rotar consiste en añadir una clave maestra nueva y activarla: las escrituras pasan a
+ * la nueva versión y {@link KeyRotationService} re-cifra en segundo plano lo existente.
+ */
+@Slf4j
+@Service
+public class DataKeyService {
+
+    private final UserDataKeyRepository userDataKeyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionUtil encryptionUtil;
+    private final TransactionTemplate nestedTransaction;
+    // La versión N de la clave de datos se envuelve con la clave maestra N
+    private final Map<Integer, SecretKey> masterKeys;
+    private final int activeKeyVersion;
+    private final BoundedCache<DataKeyId, SecretKey> cache;
+    // Clave del recurso de transacción con las claves creadas y aún sin confirmar
+    private final Object pendingKeysResource = new Object();
+
+    public DataKeyService(UserDataKeyRepository userDataKeyRepository,
+                          JdbcTemplate jdbcTemplate,
+                          EncryptionUtil encryptionUtil,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          EncryptionProperties properties) {
+        this.userDataKeyRepository = userDataKeyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptionUtil = encryptionUtil;
+        // Savepoint en la transacción del llamador: no ocupa una segunda conexión del pool
+        this.nestedTransaction = new TransactionTemplate(transactionManager);
+        this.nestedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+        Map<Integer, SecretKey> keys = new HashMap<>();
+        properties.resolveMasterKeys().forEach((version, key) ->
+                keys.put(version, new SecretKeySpec(Base64.getDecoder().decode(key), "AES")));
+        this.masterKeys = Map.copyOf(keys);
+        this.activeKeyVersion = properties.getActiveKeyVersion();
+        if (activeKeyVersion < 1 || activeKeyVersion > 0xFFFF) {
+            // La cabecera binaria reserva 2 bytes para la versión
+            throw new IllegalStateException("Versión de clave fuera de rango: " + activeKeyVersion);
+        }
+        if (!masterKeys.containsKey(activeKeyVersion)) {
+            throw new IllegalStateException("No hay clave maestra para la versión activa " + activeKeyVersion);
+        }
+
+        this.cache = new BoundedCache<>(properties.getDataKeyCache().getMaxSize(), properties.getDataKeyCache().getTtl());
+        this.cache.bindTo(meterRegistry, "vault.datakey.cache");
+    }
+
+    public int getActiveKeyVersion() {
+        return activeKeyVersion;
+    }
+
+    // Clave de datos existente; falla si el usuario no tiene clave para esa versión
+    public SecretKey getDataKey(Long userId, int keyVersion) {
+        DataKeyId id = new DataKeyId(userId, keyVersion);
+        SecretKey pending = pendingKey(id);
+        if (pending != null) {
+            return pending;
+        }
+        return cache.get(id, key -> load(key).orElseThrow(() -> new IllegalStateException(
+                "No existe clave de datos v" + key.keyVersion() + " para el usuario " + key.userId())));
+    }
+
+    // Clave de datos para cifrar; se crea la primera vez que el usuario la necesita
+    public SecretKey getOrCreateDataKey(Long userId, int keyVersion) {
+        DataKeyId id = new DataKeyId(userId, keyVersion);
+        SecretKey key = pendingKey(id);
+        if (key == null) {
+            key = cache.getIfPresent(id);
+        }
+        if (key != null) {
+            return key;
+        }
+        Optional<SecretKey> stored = load(id);
+        if (stored.isPresent()) {
+            cache.put(id, stored.get());
+            return stored.get();
+        }
+        return createDataKey(id);
+    }
+
+    private Optional<SecretKey> load(DataKeyId id) {
+        return userDataKeyRepository.findByUserIdAndKeyVersion(id.userId(), id.keyVersion()).map(this::unwrap);
+    }
+
+    /**
+     * Inserta la clave en la transacción del llamador, dentro de un savepoint: si otra
+     * petición la crea a la vez, el conflicto de unicidad solo deshace el insert y se usa
+     * la suya. Va por JDBC y no por JPA porque Hibernate marcaría toda la transacción
+     * para rollback al fallar el insert.
+     */
+    private SecretKey createDataKey(DataKeyId id) {
+        SecretKey dataKey = encryptionUtil.generateKey();
+        String wrappedKey = Base64.getEncoder().encodeToString(
+                encryptionUtil.encrypt(dataKey.getEncoded(), masterKey(id.keyVersion()), id.associatedData()));
+        try {
+            nestedTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                    "insert into user_data_keys (user_id, key_version, wrapped_key, created_at) values (?, ?, ?, ?)",
+                    id.userId(), id.keyVersion(), wrappedKey, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición la creó en paralelo y ya la confirmó: usar la suya
+            SecretKey existing = load(id).orElseThrow(() -> e);
+            cache.put(id, existing);
+            return existing;
+        }
+        log.info("Clave de datos v{} creada para el usuario {}", id.keyVersion(), id.userId());
+        cacheAfterCommit(id, dataKey);
+        return dataKey;
+    }
+
+    // Si la transacción se deshace, la clave no existe: cachearla antes haría cifrar con una clave perdida
+    @SuppressWarnings("unchecked")
+    private void cacheAfterCommit(DataKeyId id, SecretKey dataKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(id, dataKey);
+            return;
+        }
+        Map<DataKeyId, SecretKey> pending = (Map<DataKeyId, SecretKey>) TransactionSynchronizationManager.getResource(pendingKeysResource);
+        if (pending == null) {
+            Map<DataKeyId, SecretKey> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(pendingKeysResource, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingKeysResource);
+                    if (status == STATUS_COMMITTED) {
+                        created.forEach(cache::put);
+                    }
+                }
+            });
+            pending = created;
+        }
+        pending.put(id, dataKey);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SecretKey pendingKey(DataKeyId id) {
+        Map<DataKeyId, SecretKey> pending = (Map<DataKeyId, SecretKey>) TransactionSynchronizationManager.getResource(pendingKeysResource);
+        return pending != null ? pending.get(id) : null;
+    }
+
+    private SecretKey unwrap(UserDataKey userDataKey) {
+        DataKeyId id = new DataKeyId(userDataKey.getUser().getId(), userDataKey.getKeyVersion());
+        byte[] keyBytes = encryptionUtil.decrypt(
+                Base64.getDecoder().decode(userDataKey.getWrappedKey()), masterKey(id.keyVersion()), id.associatedData());
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+
+    private SecretKey masterKey(int keyVersion) {
+        SecretKey masterKey = masterKeys.get(keyVersion);
+        if (masterKey == null) {
+            throw new IllegalStateException("No hay clave maestra configurada para la versión " + keyVersion);
+        }
+        return masterKey;
+    }
+
+    private record DataKeyId(Long userId, int keyVersion) {
+        // Liga la clave envuelta a su usuario y versión: no se puede copiar a otra fila
+        byte[] associatedData() {
+            return ("user:" + userId + ":v" + keyVersion).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.KnownDevice;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.KnownDeviceRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dispositivos desde los que inicia sesión cada usuario y avisos de dispositivo nuevo.
+ *
+ * El login solo deja un evento en una cola acotada ({@link #recordLogin}); no hay
+ * consultas ni escrituras en la petición. {@link #flush} vacía la cola en segundo plano:
+ * agrupa los eventos por usuario y huella, actualiza last_seen_at de los conocidos y da
+ * de alta los nuevos en una transacción por lote. Los dispositivos nuevos de un mismo
+ * usuario se acumulan durante alertWindow y se avisan en un único email.
+ *
+ * Navegador y red se valoran por separado: la huella es la del navegador normalizado
+ * (familia, versión mayor y sistema), así que actualizarlo no cuenta como dispositivo
+ * nuevo. Se avisa si el navegador es nuevo para el usuario o si la red no la había usado
+ * con ninguno. Cada usuario guarda como mucho maxPerUser combinaciones (se descartan las
+ * usadas hace más tiempo) y las que llevan retention sin usarse se purgan.
+ *
+ * Los avisos pendientes viven en memoria: un reinicio dentro de la ventana los pierde.
+ */
+@Slf4j
+@Service
+public class DeviceRegistry {
+
+    private static final String TEMPLATE = "new-device";
+    private static final int MAX_USER_AGENT_LENGTH = 255;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int MAX_NETWORK_LENGTH = 64;
+    // En orden: Edge y Opera también anuncian Chrome, y Chrome también anuncia Safari
+    private static final List<BrowserPattern> BROWSERS = List.of(
+            new BrowserPattern("Edge", Pattern.compile("Edg(?:e|A|iOS)?/(\\d+)")),
+            new BrowserPattern("Opera", Pattern.compile("(?:OPR|Opera)/(\\d+)")),
+            new BrowserPattern("Firefox", Pattern.compile("(?:Firefox|FxiOS)/(\\d+)")),
+            new BrowserPattern("Chrome", Pattern.compile("(?:Chrome|CriOS)/(\\d+)")),
+            new BrowserPattern("Safari", Pattern.compile("Version/(\\d+).*Safari/")),
+            new BrowserPattern("Safari", Pattern.compile("Safari/()")));
+    private static final Pattern VERSION = Pattern.compile("\\d+(?:[._]\\d+)*");
+
+    private final KnownDeviceRepository knownDeviceRepository;
+    private final UserRepository userRepository;
+    private final MailOutboxService mailOutboxService;
+    private final MailTemplateService mailTemplateService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<LoginEvent> events;
+    private final Duration alertWindow;
+    private final int maxPerUser;
+    private final Duration retention;
+    private final int purgeBatchSize;
+    private final Clock clock;
+    private final Counter dropped;
+    private final Counter alertsSent;
+
+    // Solo lo usa flush, que está sincronizado
+    private final Map<Long, PendingAlert> pendingAlerts = new HashMap<>();
+
+    @Autowired
+    public DeviceRegistry(KnownDeviceRepository knownDeviceRepository,
+                          UserRepository userRepository,
+                          MailOutboxService mailOutboxService,
+                          MailTemplateService mailTemplateService,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.devices.queue-capacity:10000}") int queueCapacity,
+                          @Value("${security.devices.alert-window:PT10M}") Duration alertWindow,
+                          @Value("${security.devices.max-per-user:20}") int maxPerUser,
+                          @Value("${security.devices.retention:P180D}") Duration retention,
+                          @Value("${security.devices.purge-batch-size:1000}") int purgeBatchSize) {
+        this(knownDeviceRepository, userRepository, mailOutboxService, mailTemplateService, transactionManager,
+                meterRegistry, queueCapacity, alertWindow, maxPerUser, retention, purgeBatchSize,
+                Clock.systemDefaultZone());
+    }
+
+    DeviceRegistry(KnownDeviceRepository knownDeviceRepository,
+                   UserRepository userRepository,
+                   MailOutboxService mailOutboxService,
+                   MailTemplateService mailTemplateService,
+                   PlatformTransactionManager transactionManager,
+                   MeterRegistry meterRegistry,
+                   int queueCapacity,
+                   Duration alertWindow,
+                   int maxPerUser,
+                   Duration retention,
+                   int purgeBatchSize,
+                   Clock clock) {
+        this.knownDeviceRepository = knownDeviceRepository;
+        this.userRepository = userRepository;
+        this.mailOutboxService = mailOutboxService;
+        this.mailTemplateService = mailTemplateService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = new ArrayBlockingQueue<>(queueCapacity);
+        this.alertWindow = alertWindow;
+        this.maxPerUser = maxPerUser;
+        this.retention = retention;
+        this.purgeBatchSize = purgeBatchSize;
+        this.clock = clock;
+        this.dropped = Counter.builder("login.devices.dropped").register(meterRegistry);
+        this.alertsSent = Counter.builder("login.devices.alerts").register(meterRegistry);
+        Gauge.builder("login.devices.queue", events, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Llamado desde el login: nunca bloquea; con la cola llena el evento se descarta
+    public void recordLogin(User user, String userAgent, String clientIp) {
+        String agent = userAgent == null ? "" : userAgent;
+        if (agent.length() > MAX_USER_AGENT_LENGTH) {
+            agent = agent.substring(0, MAX_USER_AGENT_LENGTH);
+        }
+        LoginEvent event = new LoginEvent(user.getId(), user.getEmail(), user.getName(), agent, clientIp,
+                fingerprint(agent), network(clientIp), LocalDateTime.now(clock), LocaleContextHolder.getLocale());
+        if (!events.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.devices.flush-interval:PT5S}",
+            initialDelayString = "${security.devices.flush-interval:PT5S}")
+    public synchronized void flush() {
+        List<LoginEvent> batch = new ArrayList<>();
+        events.drainTo(batch);
+        if (!batch.isEmpty()) {
+            for (LoginEvent event : persist(batch)) {
+                pendingAlerts.computeIfAbsent(event.userId(), id -> new PendingAlert(event.at())).add(event);
+            }
+        }
+        sendDueAlerts(LocalDateTime.now(clock));
+    }
+
+    @Scheduled(fixedDelayString = "${security.devices.purge-interval:PT6H}",
+            initialDelayString = "${security.devices.purge-interval:PT6H}")
+    public void purgeStale() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(retention);
+        long total = 0;
+        int deleted;
+        do {
+            // Cada lote en su transacción
+            Integer batch = transactionTemplate.execute(status -> knownDeviceRepository.deleteSeenBefore(cutoff, purgeBatchSize));
+            deleted = batch != null ? batch : 0;
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purgados {} dispositivos sin usar desde {}", total, cutoff);
+        }
+    }
+
+    // Devuelve los eventos que corresponden a un dispositivo nuevo de un usuario que ya tenía otros
+    private List<LoginEvent> persist(List<LoginEvent> batch) {
+        // Un evento por usuario, huella y red: el último
+        Map<DeviceKey, LoginEvent> latest = new LinkedHashMap<>();
+        for (LoginEvent event : batch) {
+            latest.put(new DeviceKey(event.userId(), HexFormat.of().formatHex(event.fingerprint()), event.network()), event);
+        }
+        try {
+            return transactionTemplate.execute(status -> upsert(latest));
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia dio de alta el mismo dispositivo a la vez; al releer ya existe
+            log.debug("Dispositivo registrado en paralelo, se reintenta el lote", e);
+            return transactionTemplate.execute(status -> upsert(latest));
+        }
+    }
+
+    private List<LoginEvent> upsert(Map<DeviceKey, LoginEvent> latest) {
+        Set<Long> userIds = new HashSet<>();
+        latest.keySet().forEach(key -> userIds.add(key.userId()));
+        Map<DeviceKey, KnownDevice> known = new HashMap<>();
+        Map<Long, List<KnownDevice>> devicesByUser = new HashMap<>();
+        Set<UserValue> knownBrowsers = new HashSet<>();
+        Set<UserValue> knownNetworks = new HashSet<>();
+        for (KnownDevice device : knownDeviceRepository.findByUserIds(userIds)) {
+            Long userId = device.getUser().getId();
+            String browser = HexFormat.of().formatHex(device.getFingerprint());
+            known.put(new DeviceKey(userId, browser, device.getNetwork()), device);
+            devicesByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(device);
+            knownBrowsers.add(new UserValue(userId, browser));
+            knownNetworks.add(new UserValue(userId, device.getNetwork()));
+        }
+
+        List<LoginEvent> newDevices = new ArrayList<>();
+        List<KnownDevice> created = new ArrayList<>();
+        latest.forEach((key, event) -> {
+            KnownDevice device = known.get(key);
+            if (device != null) {
+                // Entidad gestionada: el UPDATE sale al confirmar, agrupado con los demás
+                if (event.at().isAfter(device.getLastSeenAt())) {
+                    device.setLastSeenAt(event.at());
+                    device.setIpAddress(event.clientIp());
+                }
+                return;
+            }
+            device = new KnownDevice();
+            device.setUser(userRepository.getReferenceById(event.userId()));
+            device.setFingerprint(event.fingerprint());
+            device.setNetwork(event.network());
+            device.setUserAgent(event.userAgent());
+            device.setIpAddress(event.clientIp());
+            device.setFirstSeenAt(event.at());
+            device.setLastSeenAt(event.at());
+            created.add(device);
+            // El primer dispositivo de un usuario no se avisa; un navegador conocido en una red conocida tampoco
+            boolean newBrowser = knownBrowsers.add(new UserValue(event.userId(), key.fingerprint()));
+            boolean newNetwork = knownNetworks.add(new UserValue(event.userId(), event.network()));
+            if (devicesByUser.containsKey(event.userId()) && (newBrowser || newNetwork)) {
+                newDevices.add(event);
+            }
+        });
+        knownDeviceRepository.saveAll(created);
+        evictOverLimit(devicesByUser, created);
+        return newDevices;
+    }
+
+    // Por encima de maxPerUser se borran los usados hace más tiempo; nunca los recién creados
+    private void evictOverLimit(Map<Long, List<KnownDevice>> devicesByUser, List<KnownDevice> created) {
+        Map<Long, Integer> createdByUser = new HashMap<>();
+        for (KnownDevice device : created) {
+            createdByUser.merge(device.getUser().getId(), 1, Integer::sum);
+        }
+        List<KnownDevice> evicted = new ArrayList<>();
+        createdByUser.forEach((userId, count) -> {
+            List<KnownDevice> existing = devicesByUser.getOrDefault(userId, List.of());
+            int excess = existing.size() + count - maxPerUser;
+            if (excess > 0) {
+                existing.sort(Comparator.comparing(KnownDevice::getLastSeenAt));
+                evicted.addAll(existing.subList(0, Math.min(excess, existing.size())));
+            }
+        });
+        if (!evicted.isEmpty()) {
+            knownDeviceRepository.deleteAll(evicted);
+        }
+    }
+
+    private void sendDueAlerts(LocalDateTime now) {
+        Iterator<Map.Entry<Long, PendingAlert>> iterator = pendingAlerts.entrySet().iterator();
+        while (iterator.hasNext()) {
+            PendingAlert alert = iterator.next().getValue();
+            if (alert.firstAt().plus(alertWindow).isAfter(now)) {
+                continue;
+            }
+            iterator.remove();
+            LoginEvent last = alert.devices().get(alert.devices().size() - 1);
+            StringBuilder devices = new StringBuilder();
+            for (LoginEvent event : alert.devices()) {
+                devices.append("- ").append(event.userAgent().isEmpty() ? "?" : event.userAgent())
+                        .append(" · ").append(event.clientIp() != null ? event.clientIp() : "?")
+                        .append(" · ").append(TIME_FORMAT.format(event.at()))
+                        .append('\n');
+            }
+            try {
+                mailOutboxService.enqueue(last.email(), mailTemplateService.render(TEMPLATE, last.locale(), Map.of(
+                        "name", last.name() != null ? last.name() : "",
+                        "devices", devices.toString().stripTrailing())));
+                alertsSent.increment();
+            } catch (RuntimeException e) {
+                log.error("No se pudo encolar el aviso de dispositivo nuevo para el usuario {}", last.userId(), e);
+            }
+        }
+    }
+
+    // SHA-256 del User-Agent normalizado: cambios de versión menor no cuentan como otro navegador
+    static byte[] fingerprint(String userAgent) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest(normalizeUserAgent(userAgent).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Familia del navegador, versión mayor y sistema, p. ej. "Firefox 128 / Linux". Un
+     * User-Agent que no se reconoce se usa entero, sin los números de versión.
+     */
+    static String normalizeUserAgent(String userAgent) {
+        String agent = userAgent == null ? "" : userAgent;
+        String browser = null;
+        for (BrowserPattern pattern : BROWSERS) {
+            Matcher matcher = pattern.pattern().matcher(agent);
+            if (matcher.find()) {
+                browser = (pattern.family() + " " + matcher.group(1)).trim();
+                break;
+            }
+        }
+        if (browser == null) {
+            browser = VERSION.matcher(agent).replaceAll("").trim();
+        }
+        return browser + " / " + operatingSystem(agent);
+    }
+
+    private static String operatingSystem(String agent) {
+        if (agent.contains("Windows")) {
+            return "Windows";
+        }
+        if (agent.contains("Android")) {
+            return "Android";
+        }
+        if (agent.contains("iPhone") || agent.contains("iPad") || agent.contains("iPod")) {
+            return "iOS";
+        }
+        if (agent.contains("Mac OS X") || agent.contains("Macintosh")) {
+            return "macOS";
+        }
+        if (agent.contains("CrOS")) {
+            return "ChromeOS";
+        }
+        return agent.contains("Linux") ? "Linux" : "";
+    }
+
+    // Red de origen (/24 en IPv4, /48 en IPv6): cambiar de IP dentro de la misma red no es una red nueva
+    static String network(String clientIp) {
+        if (clientIp == null || clientIp.isEmpty()) {
+            return "";
+        }
+        // Solo se aceptan literales: sin ':' ni dígitos y puntos, no se resuelve por DNS
+        if (clientIp.indexOf(':') < 0 && !clientIp.chars().allMatch(c -> Character.isDigit(c) || c == '.')) {
+            return truncate(clientIp);
+        }
+        try {
+            byte[] address = InetAddress.getByName(clientIp).getAddress();
+            int prefix = address.length == 4 ? 3 : 6;
+            byte[] network = new byte[address.length];
+            System.arraycopy(address, 0, network, 0, prefix);
+            return InetAddress.getByAddress(network).getHostAddress() + "/" + prefix * 8;
+        } catch (UnknownHostException e) {
+            return truncate(clientIp);
+        }
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_NETWORK_LENGTH ? value.substring(0, MAX_NETWORK_LENGTH) : value;
+    }
+
+    private record LoginEvent(Long userId, String email, String name, String userAgent, String clientIp,
+                              byte[] fingerprint, String network, LocalDateTime at, Locale locale) {
+    }
+
+    private record DeviceKey(Long userId, String fingerprint, String network) {
+    }
+
+    // Navegador o red de un usuario
+    private record UserValue(Long userId, String value) {
+    }
+
+    private record BrowserPattern(String family, Pattern pattern) {
+    }
+
+    private record PendingAlert(LocalDateTime firstAt, List<LoginEvent> devices) {
+
+        PendingAlert(LocalDateTime firstAt) {
+            this(firstAt, new ArrayList<>());
+        }
+
+        void add(LoginEvent event) {
+            devices.add(event);
+        }
+    }
+}
@@ -1,18 +1,17 @@
 package com.dev.passwordmanager.service;
 
 import com.dev.passwordmanager.model.User;
-import com.dev.passwordmanager.model.VerificationCode;
 import com.dev.passwordmanager.repository.UserRepository;
-import com.dev.passwordmanager.repository.VerificationCodeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.beans.factory.annotation.Value;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
 
 
@@ -20,12 +19,15 @@ import java.util.Random;
 @RequiredArgsConstructor
 @Slf4j
 public class EmailVerificationService {
-    private final JavaMailSender mailSender;
-    private final VerificationCodeRepository verificationCodeRepository;
+    private static final String TEMPLATE = "verification";
+
+    private final MailOutboxService mailOutboxService;
+    private final MailTemplateService mailTemplateService;
+    private final VerificationCodeStore verificationCodeStore;
     private final UserRepository userRepository;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    @Value("${application.mail.expiration-minutes:10}")
+    private int expirationMinutes;
 
     @Transactional
     public void sendVerificationCode(User user) {
@@ -40,22 +42,14 @@ public class EmailVerificationService {
             String code = generateVerificationCode();
 
             // Guardar el código
-            VerificationCode verificationCode = new VerificationCode();
-            verificationCode.setCode(code);
-            verificationCode.setEmail(user.getEmail());
-            verificationCode.setExpiryDate(LocalDateTime.now().plusMinutes(10));
-            verificationCodeRepository.save(verificationCode);
-
-            // Enviar email
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(user.getEmail());
-            message.setSubject("Verifica tu cuenta");
-            message.setText("Tu código de verificación es: " + code +
-                    "\nEste código expirará en 10 minutos.");
-
-            mailSender.send(message);
-            log.info("Código de verificación enviado exitosamente a: {}", user.getEmail());
+            verificationCodeStore.save(user.getEmail(), code, Duration.ofMinutes(expirationMinutes));
+
+            // Encolar el email en el idioma de la petición: se envía en segundo plano al confirmar la transacción
+            mailOutboxService.enqueue(user.getEmail(), mailTemplateService.render(TEMPLATE, LocaleContextHolder.getLocale(), Map.of(
+                    "name", Objects.requireNonNullElse(user.getName(), ""),
+                    "code", code,
+                    "minutes", expirationMinutes)));
+            log.info("Código de verificación encolado para: {}", user.getEmail());
 
         } catch (Exception e) {
             log.error("Error al enviar código de verificación a: " + user.getEmail(), e);
@@ -67,36 +61,24 @@ public class EmailVerificationService {
     public boolean verifyCode(String email, String code) {
         log.info("Verificando código para email: {}", email);
 
-        return verificationCodeRepository
-                .findByEmailAndCodeAndUsedFalse(email, code)
-                .map(verificationCode -> {
-                    if (verificationCode.isExpired()) {
-                        log.info("Código expirado para email: {}", email);
-                        return false;
-                    }
-
-                    try {
-                        // Marcar código como usado
-                        verificationCode.setUsed(true);
-                        verificationCodeRepository.save(verificationCode);
-
-                        // Activar usuario
-                        User user = userRepository.findByEmail(email)
-                                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-                        user.setEnabled(true);
-                        userRepository.save(user);
-
-                        log.info("Verificación exitosa para email: {}", email);
-                        return true;
-                    } catch (Exception e) {
-                        log.error("Error al procesar verificación para email: " + email, e);
-                        throw new RuntimeException("Error al procesar la verificación", e);
-                    }
-                })
-                .orElseGet(() -> {
-                    log.info("Código inválido o ya usado para email: {}", email);
-                    return false;
-                });
+        if (!verificationCodeStore.consume(email, code)) {
+            log.info("Código inválido, expirado o ya usado para email: {}", email);
+            return false;
+        }
+
+        try {
+            // Activar usuario
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            user.setEnabled(true);
+            userRepository.save(user);
+
+            log.info("Verificación exitosa para email: {}", email);
+            return true;
+        } catch (Exception e) {
+            log.error("Error al procesar verificación para email: " + email, e);
+            throw new RuntimeException("Error al procesar la verificación", e);
+        }
     }
 
     private String generateVerificationCode() {
@@ -6,12 +6,15 @@ import com.dev.passwordmanager.model.User;
 import com.dev.passwordmanager.repository.PhotoRepository;
 import com.dev.passwordmanager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.sql.rowset.serial.SerialBlob;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.Blob;
 import java.sql.SQLException;
 
@@ -19,13 +22,15 @@ import java.sql.SQLException;
 @RequiredArgsConstructor
 public class ImageService {
 
+    // Trozo que se copia del blob a la respuesta; la imagen nunca está entera en memoria
+    private static final int CHUNK_SIZE = 8192;
+
     private final PhotoRepository photoRepository;
     private final UserRepository userRepository;
 
     @Transactional
-    public Photo savePhoto(MultipartFile file, String userEmail) throws IOException, SQLException {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    public Photo savePhoto(MultipartFile file, Long userId) throws IOException, SQLException {
+        User user = getUser(userId);
 
         Photo photo = new Photo();
         if (file != null && !file.isEmpty()) {
@@ -34,6 +39,7 @@ public class ImageService {
             photo.setImage(photoBlob);
             photo.setFileType(file.getContentType());
             photo.setFileName(file.getOriginalFilename());
+            photo.setFileSize((long) photoBytes.length);
         }
 
         Photo savedPhoto = photoRepository.save(photo);
@@ -43,19 +49,40 @@ public class ImageService {
         return savedPhoto;
     }
 
-    public byte[] getImageData(Long id) throws SQLException {
-        Photo photo = photoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Imagen no encontrada"));
+    // Tipo y tamaño, para las cabeceras; no lee la imagen
+    @Transactional(readOnly = true)
+    public ImageInfo getImageInfo(Long id) throws SQLException {
+        Photo photo = getPhoto(id);
+        long length;
+        if (photo.getImage() == null) {
+            length = 0;
+        } else if (photo.getFileSize() != null) {
+            length = photo.getFileSize();
+        } else {
+            length = photo.getImage().length();
+        }
+        return new ImageInfo(contentType(photo.getFileType()), photo.getFileName(), length);
+    }
 
-        Blob photoBlob = photo.getImage();
-        int blobLength = (int) photoBlob.length();
-        return photoBlob.getBytes(1, blobLength);
+    // Copia length bytes desde offset (base 0) a out, por trozos, dentro de una transacción de lectura
+    @Transactional(readOnly = true)
+    public void writeImage(Long id, long offset, long length, OutputStream out) throws SQLException, IOException {
+        Blob photoBlob = getPhoto(id).getImage();
+        if (photoBlob == null || length == 0) {
+            return;
+        }
+        try (InputStream in = photoBlob.getBinaryStream(offset + 1, length)) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        }
     }
 
     @Transactional
-    public void updateUserPhoto(MultipartFile file, String userEmail) throws IOException, SQLException {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    public void updateUserPhoto(MultipartFile file, Long userId) throws IOException, SQLException {
+        User user = getUser(userId);
 
         Photo photo = user.getPhoto();
         if (photo == null) {
@@ -67,30 +94,23 @@ public class ImageService {
         photo.setImage(photoBlob);
         photo.setFileType(file.getContentType());
         photo.setFileName(file.getOriginalFilename());
+        photo.setFileSize((long) photoBytes.length);
 
         photoRepository.save(photo);
         user.setPhoto(photo);
         userRepository.save(user);
     }
 
-    public byte[] getUserPhoto(String userEmail) throws SQLException {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-
-        if (user.getPhoto() == null) {
-            return null;
-        }
-
-        Photo photo = user.getPhoto();
-        Blob photoBlob = photo.getImage();
-        int blobLength = (int) photoBlob.length();
-        return photoBlob.getBytes(1, blobLength);
+    // null si el usuario no tiene foto; el id sale del proxy sin cargar la foto
+    @Transactional(readOnly = true)
+    public Long getUserPhotoId(Long userId) {
+        Photo photo = getUser(userId).getPhoto();
+        return photo != null ? photo.getId() : null;
     }
 
     @Transactional
-    public void deletePhoto(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    public void deletePhoto(Long userId) {
+        User user = getUser(userId);
 
         if (user.getPhoto() != null) {
             Long photoId = user.getPhoto().getId();
@@ -99,4 +119,34 @@ public class ImageService {
             photoRepository.deleteById(photoId);
         }
     }
+
+    private Photo getPhoto(Long id) {
+        return photoRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Imagen no encontrada"));
+    }
+
+    // Solo se sirven tipos de imagen, salvo SVG (puede llevar scripts): un fileType subido
+    // como text/html no llega al navegador como tal
+    private static String contentType(String fileType) {
+        if (fileType != null) {
+            try {
+                MediaType mediaType = MediaType.parseMediaType(fileType);
+                if ("image".equals(mediaType.getType()) && !mediaType.isWildcardSubtype()
+                        && !mediaType.getSubtype().startsWith("svg")) {
+                    return mediaType.toString();
+                }
+            } catch (IllegalArgumentException e) {
+                // Tipo mal formado: se sirve como binario
+            }
+        }
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private User getUser(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    }
+
+    public record ImageInfo(String contentType, String fileName, long length) {
+    }
 }
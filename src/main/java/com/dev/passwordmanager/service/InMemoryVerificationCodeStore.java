@@ -0,0 +1,94 @@
+package com.dev.passwordmanager.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Códigos en un mapa concurrente por email, con caducidad. Solo sirve con una instancia:
+ * un código enviado desde un nodo no se puede verificar en otro, y se pierden al reiniciar.
+ */
+@Component
+@ConditionalOnProperty(name = "verification.code.store", havingValue = "memory")
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    private final int maxOutstanding;
+    // compute() sobre la clave serializa las operaciones de un mismo email
+    private final ConcurrentHashMap<String, List<PendingCode>> codes = new ConcurrentHashMap<>();
+
+    public InMemoryVerificationCodeStore(@Value("${verification.code.max-outstanding:3}") int maxOutstanding) {
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    @Override
+    public void save(String email, String code, Duration ttl) {
+        PendingCode pending = new PendingCode(code, Instant.now().plus(ttl));
+        codes.compute(email, (key, current) -> {
+            List<PendingCode> updated = current == null ? new ArrayList<>() : live(current, Instant.now());
+            while (updated.size() >= maxOutstanding) {
+                updated.remove(0);
+            }
+            updated.add(pending);
+            return updated;
+        });
+    }
+
+    @Override
+    public boolean consume(String email, String code) {
+        AtomicBoolean consumed = new AtomicBoolean();
+        codes.computeIfPresent(email, (key, current) -> {
+            List<PendingCode> remaining = live(current, Instant.now());
+            if (remaining.removeIf(pending -> pending.matches(code))) {
+                consumed.set(true);
+            }
+            return remaining.isEmpty() ? null : remaining;
+        });
+        return consumed.get();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${verification.code.purge-interval:PT10M}",
+            initialDelayString = "${verification.code.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        for (String email : codes.keySet()) {
+            codes.computeIfPresent(email, (key, current) -> {
+                List<PendingCode> remaining = live(current, now);
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+    }
+
+    int size() {
+        return codes.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static List<PendingCode> live(List<PendingCode> current, Instant now) {
+        List<PendingCode> remaining = new ArrayList<>(current.size() + 1);
+        for (PendingCode pending : current) {
+            if (pending.expiresAt().isAfter(now)) {
+                remaining.add(pending);
+            }
+        }
+        return remaining;
+    }
+
+    private record PendingCode(String code, Instant expiresAt) {
+
+        // Comparación en tiempo constante
+        boolean matches(String candidate) {
+            return candidate != null && MessageDigest.isEqual(
+                    code.getBytes(StandardCharsets.UTF_8), candidate.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
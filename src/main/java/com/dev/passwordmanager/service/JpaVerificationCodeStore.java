@@ -0,0 +1,86 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.VerificationCode;
+import com.dev.passwordmanager.repository.VerificationCodeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Códigos en la tabla verification_codes, compartidos entre instancias. Un código
+ * consumido se borra y cada email conserva como mucho maxOutstanding pendientes; el
+ * resto (caducados) lo borra la purga periódica por lotes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "verification.code.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaVerificationCodeStore implements VerificationCodeStore {
+
+    private final VerificationCodeRepository verificationCodeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxOutstanding;
+    private final int purgeBatchSize;
+
+    public JpaVerificationCodeStore(VerificationCodeRepository verificationCodeRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${verification.code.max-outstanding:3}") int maxOutstanding,
+                                    @Value("${verification.code.purge-batch-size:1000}") int purgeBatchSize) {
+        this.verificationCodeRepository = verificationCodeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxOutstanding = maxOutstanding;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Override
+    @Transactional
+    public void save(String email, String code, Duration ttl) {
+        List<VerificationCode> pending = verificationCodeRepository.findByEmailAndUsedFalseOrderByIdDesc(email);
+        // Se queda sitio para el nuevo: sobran los más antiguos a partir de maxOutstanding - 1
+        if (pending.size() >= maxOutstanding) {
+            verificationCodeRepository.deleteAllInBatch(pending.subList(maxOutstanding - 1, pending.size()));
+        }
+
+        VerificationCode verificationCode = new VerificationCode();
+        verificationCode.setCode(code);
+        verificationCode.setEmail(email);
+        verificationCode.setExpiryDate(LocalDateTime.now().plus(ttl));
+        verificationCodeRepository.save(verificationCode);
+    }
+
+    @Override
+    @Transactional
+    public boolean consume(String email, String code) {
+        return verificationCodeRepository.findByEmailAndCodeAndUsedFalse(email, code)
+                .filter(verificationCode -> !verificationCode.isExpired())
+                // Con dos verificaciones a la vez, solo una borra la fila
+                .map(verificationCode -> verificationCodeRepository.deleteOne(verificationCode.getId()) == 1)
+                .orElse(false);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${verification.code.purge-interval:PT10M}",
+            initialDelayString = "${verification.code.purge-interval:PT10M}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        int deleted;
+        do {
+            Integer batch = transactionTemplate.execute(status -> verificationCodeRepository.deleteExpiredOrUsed(now, purgeBatchSize));
+            deleted = batch != null ? batch : 0;
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purgados {} códigos de verificación caducados o usados", total);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.config.EncryptionProperties;
+import com.dev.passwordmanager.model.KeyRotationCheckpoint;
+import com.dev.passwordmanager.model.PasswordEntry;
+import com.dev.passwordmanager.repository.KeyRotationCheckpointRepository;
+import com.dev.passwordmanager.repository.PasswordEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Re-cifra en segundo plano las contraseñas almacenadas con una versión de clave
+ * distinta de la activa y migra al formato binario las que siguen en texto
+ * (incluidas las anteriores al cifrado por sobres). De paso calcula los índices ciegos
+ * de las filas que aún no los tienen.
+ *
+ * Recorre password_entries por lotes en orden de id, confirma cada lote junto con su
+ * checkpoint y limita el ritmo a encryption.rotation.rows-per-second. Cada fila se
+ * actualiza con compare-and-set, así que una escritura concurrente del usuario nunca
+ * se pisa: esa fila ya queda cifrada con la versión activa.
+ *
+ * Cada lote empieza bloqueando la fila del checkpoint (select ... for update): si el
+ * trabajo arranca en varias instancias, se reparten los lotes en orden en vez de repetir
+ * los mismos rangos. Una fila que no se puede descifrar se omite y se cuenta en
+ * rows_failed (con su id en el log); no detiene el recorrido.
+ */
+@Slf4j
+@Service
+public class KeyRotationService {
+
+    // Qué deja hecho un recorrido completo: 1 = formato binario, 2 = además índices ciegos.
+    // Subirla hace que el siguiente arranque repita el recorrido desde el principio
+    private static final Integer REVISION = 2;
+
+    private final PasswordEntryRepository passwordEntryRepository;
+    private final KeyRotationCheckpointRepository checkpointRepository;
+    private final VaultEncryptionService vaultEncryptionService;
+    private final BlindIndexService blindIndexService;
+    private final DataKeyService dataKeyService;
+    private final TransactionTemplate transactionTemplate;
+    private final EncryptionProperties.Rotation settings;
+    private final Counter failedRows;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "key-rotation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public KeyRotationService(PasswordEntryRepository passwordEntryRepository,
+                              KeyRotationCheckpointRepository checkpointRepository,
+                              VaultEncryptionService vaultEncryptionService,
+                              BlindIndexService blindIndexService,
+                              DataKeyService dataKeyService,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              EncryptionProperties properties) {
+        this.passwordEntryRepository = passwordEntryRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.vaultEncryptionService = vaultEncryptionService;
+        this.blindIndexService = blindIndexService;
+        this.dataKeyService = dataKeyService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getRotation();
+        this.failedRows = Counter.builder("vault.rotation.failed").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (settings.isEnabled()) {
+            start();
+        }
+    }
+
+    // Lanza la rotación en segundo plano; no hace nada si ya hay una en curso
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.submit(() -> {
+            try {
+                rotate(dataKeyService.getActiveKeyVersion());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.info("Rotación de claves interrumpida");
+            } catch (Exception e) {
+                log.error("Error en la rotación de claves; se reanudará desde el último checkpoint", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    void rotate(int targetVersion) throws InterruptedException {
+        createCheckpointIfMissing(targetVersion);
+        log.info("Rotación a clave v{}", targetVersion);
+
+        long nanosPerRow = TimeUnit.SECONDS.toNanos(1) / Math.max(1, settings.getRowsPerSecond());
+        while (!Thread.currentThread().isInterrupted()) {
+            long batchStart = System.nanoTime();
+            BatchResult result = transactionTemplate.execute(status -> rotateBatch(targetVersion));
+
+            if (result == null || result.scanned() == 0) {
+                checkpointRepository.findById(targetVersion).ifPresent(checkpoint -> {
+                    if (checkpoint.getRowsFailed() > 0) {
+                        log.warn("Rotación a clave v{} completada; {} filas no se pudieron re-cifrar",
+                                targetVersion, checkpoint.getRowsFailed());
+                    } else {
+                        log.info("Rotación a clave v{} completada", targetVersion);
+                    }
+                });
+                return;
+            }
+            log.debug("Lote rotado: {} de {} filas ({} fallidas), último id {}",
+                    result.rotated(), result.scanned(), result.failed(), result.lastEntryId());
+
+            // Espera lo necesario para no superar rows-per-second
+            long pause = result.scanned() * nanosPerRow - (System.nanoTime() - batchStart);
+            if (pause > 0) {
+                TimeUnit.NANOSECONDS.sleep(pause);
+            }
+        }
+    }
+
+    // Procesa el lote siguiente al checkpoint; scanned = 0 cuando el recorrido ha terminado
+    BatchResult rotateBatch(int targetVersion) {
+        // Con el checkpoint bloqueado, otra instancia espera y sigue desde donde acabe este lote
+        KeyRotationCheckpoint checkpoint = checkpointRepository.findForUpdate(targetVersion)
+                .orElseThrow(() -> new IllegalStateException("No existe el checkpoint de la rotación a v" + targetVersion));
+        if (!Objects.equals(checkpoint.getRevision(), REVISION)) {
+            // Recorrido de una revisión anterior: se repite desde el principio
+            checkpoint.setRevision(REVISION);
+            checkpoint.setLastEntryId(0L);
+            checkpoint.setCompleted(false);
+        }
+        if (checkpoint.isCompleted()) {
+            return new BatchResult(0, 0, 0, checkpoint.getLastEntryId());
+        }
+
+        List<PasswordEntry> batch = passwordEntryRepository.findByIdGreaterThanOrderByIdAsc(
+                checkpoint.getLastEntryId(), PageRequest.of(0, settings.getBatchSize()));
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        if (batch.isEmpty()) {
+            checkpoint.setCompleted(true);
+            checkpointRepository.save(checkpoint);
+            return new BatchResult(0, 0, 0, checkpoint.getLastEntryId());
+        }
+
+        int rotated = 0;
+        int failed = 0;
+        for (PasswordEntry entry : batch) {
+            Long userId = entry.getUser().getId();
+            byte[] sealed = entry.getPasswordCipher();
+            byte[] reEncrypted = null;
+            String[] blindIndexes = null;
+            try {
+                if (sealed == null) {
+                    // Fila en formato de texto: se migra al binario con la clave activa
+                    reEncrypted = vaultEncryptionService.encrypt(userId,
+                            vaultEncryptionService.decryptLegacy(userId, entry.getPassword()));
+                } else if (vaultEncryptionService.needsRotation(sealed)) {
+                    reEncrypted = vaultEncryptionService.encrypt(userId, vaultEncryptionService.decrypt(userId, sealed));
+                }
+                if (entry.getUsernameIndex() == null && entry.getWebsiteIndex() == null) {
+                    // Filas anteriores a los índices ciegos
+                    blindIndexes = new String[]{
+                            blindIndexService.usernameToken(userId, entry.getUsername()),
+                            blindIndexService.websiteToken(userId, entry.getWebsite()),
+                            blindIndexService.domainToken(userId, entry.getWebsite())};
+                }
+            } catch (DataAccessException e) {
+                // Error de base de datos, no de la fila: se aborta el lote y se reintenta desde el checkpoint
+                throw e;
+            } catch (RuntimeException e) {
+                // Texto cifrado corrupto o clave de datos ausente: reintentarlo fallaría igual
+                failed++;
+                log.error("Entrada {} omitida en la rotación a clave v{}: {}", entry.getId(), targetVersion, e.toString());
+                continue;
+            }
+
+            if (reEncrypted != null) {
+                rotated += sealed == null
+                        ? passwordEntryRepository.migrateLegacyPassword(entry.getId(), entry.getPassword(), reEncrypted)
+                        : passwordEntryRepository.compareAndSetPasswordCipher(entry.getId(), sealed, reEncrypted);
+            }
+            if (blindIndexes != null) {
+                passwordEntryRepository.updateBlindIndexes(entry.getId(), blindIndexes[0], blindIndexes[1], blindIndexes[2]);
+            }
+        }
+        failedRows.increment(failed);
+
+        long lastId = batch.get(batch.size() - 1).getId();
+        checkpoint.setLastEntryId(lastId);
+        checkpoint.setRowsRotated(checkpoint.getRowsRotated() + rotated);
+        checkpoint.setRowsFailed(checkpoint.getRowsFailed() + failed);
+        checkpointRepository.save(checkpoint);
+
+        return new BatchResult(batch.size(), rotated, failed, lastId);
+    }
+
+    // Otra instancia puede crearlo a la vez: basta con que exista
+    void createCheckpointIfMissing(int targetVersion) {
+        if (checkpointRepository.existsById(targetVersion)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                KeyRotationCheckpoint checkpoint = new KeyRotationCheckpoint();
+                checkpoint.setTargetKeyVersion(targetVersion);
+                checkpoint.setRevision(REVISION);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.saveAndFlush(checkpoint);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Checkpoint de la rotación a v{} creado por otra instancia", targetVersion);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    record BatchResult(int scanned, int rotated, int failed, long lastEntryId) {
+    }
+}
@@ -0,0 +1,221 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.MailOutbox;
+import com.dev.passwordmanager.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbox transaccional de emails.
+ *
+ * {@link #enqueue} solo inserta una fila en la transacción de quien lo llama (el registro
+ * confirma usuario, código y email juntos, sin esperar al SMTP). {@link #dispatch} las
+ * envía en segundo plano: reserva un lote en una transacción corta, lo manda por una
+ * sola conexión SMTP sin tener abierta ninguna conexión a la base de datos y borra los
+ * enviados. Los fallos se reintentan con backoff exponencial.
+ */
+@Slf4j
+@Service
+public class MailOutboxService {
+
+    // Tiempo que una instancia se reserva un lote; si se cae, otra lo reintenta pasado este plazo
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String fromEmail;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter abandoned;
+
+    public MailOutboxService(MailOutboxRepository mailOutboxRepository,
+                             JavaMailSender mailSender,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${application.mail.from:${spring.mail.username}}") String fromEmail,
+                             @Value("${mail.outbox.batch-size:50}") int batchSize,
+                             @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${mail.outbox.initial-backoff:30s}") Duration initialBackoff,
+                             @Value("${mail.outbox.max-backoff:1h}") Duration maxBackoff) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.sent = Counter.builder("mail.outbox.sent").register(meterRegistry);
+        this.retried = Counter.builder("mail.outbox.retried").register(meterRegistry);
+        this.abandoned = Counter.builder("mail.outbox.abandoned").register(meterRegistry);
+    }
+
+    // Se confirma (o se deshace) con la transacción que lo llama
+    @Transactional
+    public void enqueue(String recipient, MailTemplateService.RenderedMail content) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox mail = new MailOutbox();
+        mail.setRecipient(recipient);
+        mail.setSubject(content.subject());
+        mail.setBody(content.text());
+        mail.setHtmlBody(content.html());
+        mail.setCreatedAt(now);
+        mail.setNextAttemptAt(now);
+        mailOutboxRepository.save(mail);
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:PT2S}",
+            initialDelayString = "${mail.outbox.poll-interval:PT2S}")
+    public void dispatch() {
+        List<MailOutbox> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<MailOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(LEASE);
+        List<MailOutbox> claimed = transactionTemplate.execute(status -> {
+            List<MailOutbox> rows = new ArrayList<>();
+            for (MailOutbox mail : mailOutboxRepository.findDue(now, PageRequest.of(0, batchSize))) {
+                if (mailOutboxRepository.claim(mail.getId(), mail.getNextAttemptAt(), leaseUntil) == 1) {
+                    rows.add(mail);
+                }
+            }
+            return rows;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    private void send(List<MailOutbox> batch) {
+        List<MailOutbox> failed = new ArrayList<>();
+        List<MailOutbox> sendable = new ArrayList<>(batch.size());
+        List<MimeMessage> built = new ArrayList<>(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (MailOutbox mail : batch) {
+            try {
+                built.add(toMessage(mail));
+                sendable.add(mail);
+            } catch (MessagingException e) {
+                // Dirección mal formada: reintentar no lo arreglará, pero se respeta maxAttempts
+                scheduleRetry(mail, e, now);
+                failed.add(mail);
+            }
+        }
+        MimeMessage[] messages = built.toArray(MimeMessage[]::new);
+
+        // JavaMailSenderImpl envía el array entero por una única conexión
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        try {
+            if (messages.length > 0) {
+                mailSender.send(messages);
+            }
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (MailException e) {
+            // Conexión o autenticación: no ha salido ninguno
+            batchFailure = e;
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            Exception error = batchFailure != null ? batchFailure : failures.get(messages[i]);
+            MailOutbox mail = sendable.get(i);
+            if (error == null) {
+                delivered.add(mail.getId());
+            } else {
+                scheduleRetry(mail, error, now);
+                failed.add(mail);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                mailOutboxRepository.deleteAllByIdInBatch(delivered);
+            }
+            if (!failed.isEmpty()) {
+                mailOutboxRepository.saveAll(failed);
+            }
+        });
+        sent.increment(delivered.size());
+    }
+
+    // Con HTML se envía multipart/alternative: los clientes sin HTML muestran el texto
+    private MimeMessage toMessage(MailOutbox mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, mail.getHtmlBody() != null, StandardCharsets.UTF_8.name());
+        helper.setFrom(fromEmail);
+        helper.setTo(mail.getRecipient());
+        helper.setSubject(mail.getSubject());
+        if (mail.getHtmlBody() != null) {
+            helper.setText(mail.getBody(), mail.getHtmlBody());
+        } else {
+            helper.setText(mail.getBody());
+        }
+        return message;
+    }
+
+    private void scheduleRetry(MailOutbox mail, Exception error, LocalDateTime now) {
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        mail.setLastError(truncate(error.getMessage()));
+        if (attempts >= maxAttempts) {
+            mail.setFailedAt(now);
+            abandoned.increment();
+            log.error("Email {} a {} descartado tras {} intentos: {}", mail.getId(), mail.getRecipient(), attempts, error.getMessage());
+            return;
+        }
+        mail.setNextAttemptAt(now.plus(backoff(attempts)));
+        retried.increment();
+        log.warn("Error al enviar el email {} (intento {}), se reintentará: {}", mail.getId(), attempts, error.getMessage());
+    }
+
+    // initialBackoff, 2x, 4x... hasta maxBackoff
+    Duration backoff(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        Duration delay = initialBackoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
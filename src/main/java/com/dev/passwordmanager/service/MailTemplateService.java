@@ -0,0 +1,152 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.utils.TextTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Plantillas de email de classpath:mail/, cargadas y compiladas una vez al arrancar.
+ *
+ * Cada email tiene un {nombre}.txt obligatorio, cuya primera línea es "Subject: ...",
+ * y opcionalmente un {nombre}.html. Las variantes por idioma llevan sufijo
+ * ({nombre}_en.txt, {nombre}_en_US.txt); si no hay variante para el idioma pedido se usa
+ * la versión sin sufijo, en español. El nombre puede llevar '_': solo se toma como idioma
+ * un sufijo que sea un locale conocido por la JVM.
+ */
+@Slf4j
+@Service
+public class MailTemplateService {
+
+    private static final String LOCATION = "classpath*:mail/*.*";
+    private static final String SUBJECT_PREFIX = "Subject:";
+    private static final Set<String> LOCALE_TAGS = Arrays.stream(Locale.getAvailableLocales())
+            .filter(locale -> !locale.getLanguage().isEmpty())
+            .map(Locale::toLanguageTag)
+            .collect(Collectors.toUnmodifiableSet());
+
+    // nombre -> idioma -> plantilla; inmutable tras el arranque
+    private final Map<String, Map<Locale, CompiledMail>> templates;
+
+    public MailTemplateService() throws IOException {
+        this(new PathMatchingResourcePatternResolver());
+    }
+
+    MailTemplateService(ResourcePatternResolver resolver) throws IOException {
+        Map<String, Map<Locale, String>> texts = new HashMap<>();
+        Map<String, Map<Locale, String>> htmls = new HashMap<>();
+        for (Resource resource : resolver.getResources(LOCATION)) {
+            String filename = resource.getFilename();
+            if (filename == null) {
+                continue;
+            }
+            int dot = filename.lastIndexOf('.');
+            String extension = filename.substring(dot + 1);
+            String base = filename.substring(0, dot);
+            int split = localeSuffixStart(base);
+            String name = split < 0 ? base : base.substring(0, split);
+            Locale locale = split < 0 ? Locale.ROOT : toLocale(base.substring(split + 1));
+            Map<String, Map<Locale, String>> target = switch (extension) {
+                case "txt" -> texts;
+                case "html" -> htmls;
+                default -> null;
+            };
+            if (target != null) {
+                target.computeIfAbsent(name, key -> new HashMap<>()).put(locale, read(resource));
+            }
+        }
+
+        Map<String, Map<Locale, CompiledMail>> compiled = new HashMap<>();
+        texts.forEach((name, variants) -> {
+            if (!variants.containsKey(Locale.ROOT)) {
+                throw new IllegalStateException("Falta la plantilla mail/" + name + ".txt");
+            }
+            Map<Locale, CompiledMail> byLocale = new HashMap<>();
+            variants.forEach((locale, text) -> {
+                String html = htmls.getOrDefault(name, Map.of()).get(locale);
+                byLocale.put(locale, compile(name, text, html));
+            });
+            compiled.put(name, Map.copyOf(byLocale));
+        });
+        htmls.keySet().stream()
+                .filter(name -> !texts.containsKey(name))
+                .findAny()
+                .ifPresent(name -> {
+                    throw new IllegalStateException("La plantilla mail/" + name + ".html no tiene versión .txt");
+                });
+        this.templates = Map.copyOf(compiled);
+        log.info("Plantillas de email cargadas: {}", templates.keySet());
+    }
+
+    public RenderedMail render(String name, Locale locale, Map<String, ?> model) {
+        Map<Locale, CompiledMail> variants = templates.get(name);
+        if (variants == null) {
+            throw new IllegalArgumentException("Plantilla de email desconocida: " + name);
+        }
+        CompiledMail mail = variants.get(locale);
+        if (mail == null) {
+            mail = variants.getOrDefault(Locale.forLanguageTag(locale.getLanguage()), variants.get(Locale.ROOT));
+        }
+        return new RenderedMail(
+                mail.subject().render(model),
+                mail.text().render(model),
+                mail.html() != null ? mail.html().render(model) : null);
+    }
+
+    /**
+     * Posición del '_' que separa el nombre del idioma, o -1 si no hay idioma. Se prueba
+     * de izquierda a derecha, así que gana el sufijo válido más largo: "new_device_en_US"
+     * es new_device en en-US y "new_device" no lleva idioma.
+     */
+    static int localeSuffixStart(String base) {
+        for (int i = base.indexOf('_'); i >= 0; i = base.indexOf('_', i + 1)) {
+            if (LOCALE_TAGS.contains(toLocale(base.substring(i + 1)).toLanguageTag())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Locale toLocale(String suffix) {
+        return Locale.forLanguageTag(suffix.replace('_', '-'));
+    }
+
+    private static CompiledMail compile(String name, String text, String html) {
+        int lineEnd = text.indexOf('\n');
+        if (!text.startsWith(SUBJECT_PREFIX) || lineEnd < 0) {
+            throw new IllegalStateException("La plantilla " + name + " debe empezar por \"" + SUBJECT_PREFIX + "\"");
+        }
+        String subject = text.substring(SUBJECT_PREFIX.length(), lineEnd).trim();
+        String body = text.substring(lineEnd + 1).stripLeading();
+        return new CompiledMail(
+                TextTemplate.compile(subject, false),
+                TextTemplate.compile(body, false),
+                html != null ? TextTemplate.compile(html, true) : null);
+    }
+
+    private static String read(Resource resource) throws IOException {
+        try (InputStream input = resource.getInputStream()) {
+            return StreamUtils.copyToString(input, StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }
+    }
+
+    private record CompiledMail(TextTemplate subject, TextTemplate text, TextTemplate html) {
+    }
+
+    // html es null si la plantilla solo tiene versión de texto
+    public record RenderedMail(String subject, String text, String html) {
+    }
+}
@@ -8,12 +8,15 @@ import com.dev.passwordmanager.model.User;
 import com.dev.passwordmanager.repository.CategoryRepository;
 import com.dev.passwordmanager.repository.PasswordEntryRepository;
 import com.dev.passwordmanager.repository.UserRepository;
-import com.dev.passwordmanager.utils.EncryptionUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,81 +25,101 @@ public class PasswordService {
     private final PasswordEntryRepository passwordEntryRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final EncryptionUtil encryptionUtil;
+    private final VaultEncryptionService vaultEncryptionService;
+    private final BlindIndexService blindIndexService;
+
+    static final int MAX_PAGE_SIZE = 500;
 
     @Transactional
-    public PasswordEntryDTO.Response createPassword(PasswordEntryDTO dto, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    public PasswordEntryDTO.Response createPassword(PasswordEntryDTO dto, Long userId) {
+        // Referencia sin consulta: el usuario autenticado ya se cargó al validar el token
+        User user = userRepository.getReferenceById(userId);
 
         PasswordEntry passwordEntry = new PasswordEntry();
         passwordEntry.setName(dto.getName());
         passwordEntry.setUsername(dto.getUsername());
-        passwordEntry.setPassword(encryptionUtil.encrypt(dto.getPassword())); // Usando la nueva utilidad
+        passwordEntry.setPasswordCipher(vaultEncryptionService.encrypt(userId, dto.getPassword()));
         passwordEntry.setWebsite(dto.getWebsiteUrl());
         passwordEntry.setNotes(dto.getNotes());
         passwordEntry.setUser(user);
+        blindIndexService.index(passwordEntry, userId);
 
         if (dto.getCategoryId() != null) {
-            Category category = categoryRepository.findById(dto.getCategoryId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
-            if (!category.getUser().getId().equals(user.getId())) {
-                throw new RuntimeException("La categoría no pertenece al usuario");
-            }
-            passwordEntry.setCategory(category);
+            passwordEntry.setCategory(getCategory(dto.getCategoryId(), userId));
         }
 
         passwordEntry = passwordEntryRepository.save(passwordEntry);
         return convertToResponse(passwordEntry);
     }
 
-    public List<PasswordEntryDTO.Response> getUserPasswords(String userEmail, Long categoryId, String search) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    public PasswordEntryDTO.Page getUserPasswords(Long userId, Long categoryId, String search,
+                                                  Integer limit, String cursor) {
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        PageCursor after = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor) : PageCursor.FIRST;
+        // Sin limit se devuelve la lista completa, como antes de paginar; con limit se pide
+        // una fila de más para saber si hay página siguiente sin contar
+        Pageable pageable = limit != null ? PageRequest.of(0, limit + 1) : Pageable.unpaged();
 
-        List<PasswordEntry> passwords;
+        List<PasswordEntryDTO.Response> passwords;
         if (categoryId != null) {
-            passwords = passwordEntryRepository.findByUserIdAndCategoryId(user.getId(), categoryId);
+            passwords = passwordEntryRepository.findPageByCategory(userId, categoryId,
+                    after.name(), after.id(), pageable);
         } else if (search != null && !search.trim().isEmpty()) {
-            passwords = passwordEntryRepository.findByUserIdAndNameContainingIgnoreCase(user.getId(), search);
+            String term = search.trim();
+            passwords = passwordEntryRepository.searchPage(userId, term,
+                    blindIndexService.usernameToken(userId, term),
+                    blindIndexService.websiteToken(userId, term),
+                    blindIndexService.domainToken(userId, term),
+                    after.name(), after.id(), pageable);
         } else {
-            passwords = passwordEntryRepository.findByUserId(user.getId());
+            passwords = passwordEntryRepository.findPage(userId, after.name(), after.id(), pageable);
         }
 
-        return passwords.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (limit != null && passwords.size() > limit) {
+            passwords = passwords.subList(0, limit);
+            PasswordEntryDTO.Response last = passwords.get(limit - 1);
+            nextCursor = new PageCursor(last.getName(), last.getId()).encode();
+        }
+        return new PasswordEntryDTO.Page(passwords, nextCursor);
     }
 
-    public PasswordEntryDTO.Response getPassword(Long id, String userEmail) {
-        PasswordEntry passwordEntry = getPasswordEntryByIdAndEmail(id, userEmail);
-        return convertToResponse(passwordEntry);
+    public PasswordEntryDTO.Response getPassword(Long id, Long userId) {
+        return passwordEntryRepository.findResponseByIdAndUserId(id, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Contraseña no encontrada"));
     }
 
-    public String getDecryptedPassword(Long id, String userEmail) {
-        PasswordEntry passwordEntry = getPasswordEntryByIdAndEmail(id, userEmail);
-        return encryptionUtil.decrypt(passwordEntry.getPassword());
+    @Transactional
+    public String getDecryptedPassword(Long id, Long userId) {
+        PasswordEntry passwordEntry = getPasswordEntry(id, userId);
+        String password = vaultEncryptionService.decryptPassword(passwordEntry);
+
+        // Migración perezosa: las filas en formato de texto pasan al binario al leerse
+        if (passwordEntry.getPasswordCipher() == null) {
+            passwordEntry.setPasswordCipher(vaultEncryptionService.encrypt(userId, password));
+            passwordEntry.setPassword(null);
+        }
+        return password;
     }
 
     @Transactional
-    public PasswordEntryDTO.Response updatePassword(Long id, PasswordEntryDTO dto, String userEmail) {
-        PasswordEntry passwordEntry = getPasswordEntryByIdAndEmail(id, userEmail);
+    public PasswordEntryDTO.Response updatePassword(Long id, PasswordEntryDTO dto, Long userId) {
+        PasswordEntry passwordEntry = getPasswordEntry(id, userId);
 
         passwordEntry.setName(dto.getName());
         passwordEntry.setUsername(dto.getUsername());
         if (dto.getPassword() != null) {
-            passwordEntry.setPassword(encryptionUtil.encrypt(dto.getPassword()));
+            passwordEntry.setPasswordCipher(vaultEncryptionService.encrypt(userId, dto.getPassword()));
+            passwordEntry.setPassword(null);
         }
         passwordEntry.setWebsite(dto.getWebsiteUrl());
         passwordEntry.setNotes(dto.getNotes());
+        blindIndexService.index(passwordEntry, userId);
 
         if (dto.getCategoryId() != null) {
-            Category category = categoryRepository.findById(dto.getCategoryId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
-            if (!category.getUser().getId().equals(passwordEntry.getUser().getId())) {
-                throw new RuntimeException("La categoría no pertenece al usuario");
-            }
-            passwordEntry.setCategory(category);
+            passwordEntry.setCategory(getCategory(dto.getCategoryId(), userId));
         } else {
             passwordEntry.setCategory(null);
         }
@@ -106,23 +129,25 @@ public class PasswordService {
     }
 
     @Transactional
-    public void deletePassword(Long id, String userEmail) {
-        PasswordEntry passwordEntry = getPasswordEntryByIdAndEmail(id, userEmail);
+    public void deletePassword(Long id, Long userId) {
+        PasswordEntry passwordEntry = getPasswordEntry(id, userId);
         passwordEntryRepository.delete(passwordEntry);
     }
 
-    private PasswordEntry getPasswordEntryByIdAndEmail(Long id, String userEmail) {
-        PasswordEntry passwordEntry = passwordEntryRepository.findById(id)
+    private PasswordEntry getPasswordEntry(Long id, Long userId) {
+        // Una entrada de otro usuario responde igual que una inexistente
+        return passwordEntryRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Contraseña no encontrada"));
+    }
 
-        if (!passwordEntry.getUser().getEmail().equals(userEmail)) {
-            throw new RuntimeException("No autorizado para acceder a esta contraseña");
-        }
-
-        return passwordEntry;
+    private Category getCategory(Long categoryId, Long userId) {
+        return categoryRepository.findByIdAndUserId(categoryId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
     }
 
-    private PasswordEntryDTO.Response convertToResponse(PasswordEntry passwordEntry) {
+    // Respuesta de las escrituras, que ya tienen la entidad y su categoría cargadas; las lecturas
+    // usan las proyecciones del repositorio. Visible en el paquete para los benchmarks de mapeo (src/jmh)
+    PasswordEntryDTO.Response convertToResponse(PasswordEntry passwordEntry) {
         PasswordEntryDTO.Response response = new PasswordEntryDTO.Response();
         response.setId(passwordEntry.getId());
         response.setName(passwordEntry.getName());
@@ -138,5 +163,24 @@ public class PasswordService {
         return response;
     }
 
+    // Posición (name, id) de la última fila entregada, codificada como token opaco para el cliente
+    record PageCursor(String name, Long id) {
 
+        static final PageCursor FIRST = new PageCursor("", 0L);
+
+        String encode() {
+            String raw = id + ":" + name;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                return new PageCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor de paginación no válido");
+            }
+        }
+    }
 }
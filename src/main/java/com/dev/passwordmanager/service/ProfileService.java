@@ -1,5 +1,6 @@
 package com.dev.passwordmanager.service;
 
+import com.dev.passwordmanager.config.security.jwt.TokenVersionService;
 import com.dev.passwordmanager.dto.profile.ChangePasswordRequest;
 import com.dev.passwordmanager.dto.profile.ProfileResponse;
 import com.dev.passwordmanager.dto.profile.UpdateRequest;
@@ -24,22 +25,28 @@ public class ProfileService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionService tokenVersionService;
 
     private static final String UPLOAD_DIR = "uploads/profiles/";
 
-    public ProfileResponse getProfile(String email) {
-        User user = getUserByEmail(email);
-        return convertToProfileResponse(user);
+    // El principal puede venir solo de los claims del token: nombre e imagen se leen aquí
+    @Transactional(readOnly = true)
+    public ProfileResponse getProfile(Long userId) {
+        return convertToProfileResponse(getUser(userId));
     }
 
     @Transactional
-    public ProfileResponse updateProfile(UpdateRequest request, String currentEmail) {
-        User user = getUserByEmail(currentEmail);
+    public ProfileResponse updateProfile(UpdateRequest request, Long userId) {
+        User user = getUser(userId);
 
         if (!user.getEmail().equals(request.getEmail()) &&
                 userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("El email ya está en uso");
         }
+        if (!user.getEmail().equals(request.getEmail())) {
+            // El email es el subject de los tokens emitidos: dejan de ser válidos
+            tokenVersionService.revokeTokens(user);
+        }
         user.setName(request.getName());
         user.setEmail(request.getEmail());
 
@@ -48,22 +55,23 @@ public class ProfileService {
     }
 
     @Transactional
-    public void changePassword(ChangePasswordRequest request, String email) {
-        User user = getUserByEmail(email);
+    public void changePassword(ChangePasswordRequest request, Long userId) {
+        User user = getUser(userId);
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new RuntimeException("La contraseña actual es incorrecta");
         }
         if (!request.getNewPassword().equals(request.getConfirmPassword())) {
             throw new RuntimeException("Las contraseñas no coinciden");
         }
-        // Actualizar contraseña
+        // Actualizar contraseña y cerrar las sesiones abiertas con la anterior
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        tokenVersionService.revokeTokens(user);
         userRepository.save(user);
     }
 
     @Transactional
-    public ProfileResponse updateProfileImage(MultipartFile image, String email) {
-        User user = getUserByEmail(email);
+    public ProfileResponse updateProfileImage(MultipartFile image, Long userId) {
+        User user = getUser(userId);
         try {
             // Crear directorio si no existe
             Files.createDirectories(Paths.get(UPLOAD_DIR));
@@ -93,8 +101,8 @@ public class ProfileService {
         }
     }
 
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
+    private User getUser(Long userId) {
+        return userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
     }
     private ProfileResponse convertToProfileResponse(User user) {
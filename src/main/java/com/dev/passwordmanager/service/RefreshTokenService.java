@@ -0,0 +1,146 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.RefreshToken;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Refresh tokens rotativos de un solo uso. Con ellos el access token puede durar
+ * minutos: revocar solo exige dejar de renovarlo, y el estado de revocación se limita
+ * a las filas de esta tabla aún sin caducar.
+ *
+ * Canjear un token ya usado indica que alguien lo ha copiado, así que se borra la
+ * familia completa y tanto el cliente legítimo como el atacante tienen que volver a
+ * iniciar sesión.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int purgeBatchSize;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${jwt.refresh-token.ttl:14d}") Duration ttl,
+                               @Value("${jwt.refresh-token.purge-batch-size:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    // Primer token de una familia nueva (login o registro)
+    @Transactional
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID());
+    }
+
+    /**
+     * Canjea un refresh token por el siguiente de su familia. Lanza BadCredentialsException
+     * si no existe, ha caducado, ya se usó o el usuario revocó sus tokens; en los dos
+     * últimos casos la familia queda borrada (por eso esa excepción no deshace la transacción).
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido"));
+        LocalDateTime now = LocalDateTime.now();
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new BadCredentialsException("Refresh token expirado");
+        }
+
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            log.warn("Refresh token reutilizado para el usuario {}; se revoca la familia {}",
+                    current.getUser().getId(), current.getFamilyId());
+            refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            throw new BadCredentialsException("Refresh token ya utilizado");
+        }
+
+        User user = current.getUser();
+        if (user.getTokenVersion() != current.getTokenVersion()) {
+            // Cambio de contraseña o de email desde que se emitió
+            refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            throw new BadCredentialsException("Refresh token revocado");
+        }
+        return new Rotation(user, issue(user, current.getFamilyId()));
+    }
+
+    // Logout: deja sin efecto el token y todos los de su familia; uno desconocido se ignora
+    @Transactional
+    public void revokeFamily(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:PT1H}",
+            initialDelayString = "${jwt.refresh-token.purge-initial-delay:PT5M}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        int deleted;
+        do {
+            // Cada lote en su transacción
+            Integer batch = transactionTemplate.execute(status -> refreshTokenRepository.deleteExpired(now, purgeBatchSize));
+            deleted = batch != null ? batch : 0;
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purgados {} refresh tokens caducados", total);
+        }
+    }
+
+    private String issue(User user, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUser(user);
+        refreshToken.setTokenVersion(user.getTokenVersion());
+        refreshToken.setExpiresAt(LocalDateTime.now().plus(ttl));
+        refreshTokenRepository.save(refreshToken);
+        return rawToken;
+    }
+
+    private static byte[] hash(String rawToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
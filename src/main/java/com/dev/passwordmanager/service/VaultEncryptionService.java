@@ -0,0 +1,91 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.PasswordEntry;
+import com.dev.passwordmanager.utils.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Cifra y descifra los secretos de la bóveda con la clave de datos del usuario.
+ *
+ * Formato binario (columna password_cipher):
+ * [formato: 1 byte][versión de clave: 2 bytes][nonce: 12 bytes][datos cifrados || tag: 16 bytes].
+ * La cabecera de 3 bytes va autenticada como datos asociados de GCM.
+ *
+ * Formatos de texto anteriores (columna password), solo lectura:
+ * "v{versión}:" + Base64( IV || datos cifrados || tag ), o Base64 sin prefijo
+ * cifrado con la clave estática de {@link EncryptionUtil}.
+ */
+@Service
+@RequiredArgsConstructor
+public class VaultEncryptionService {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    // Valores sin cabecera, cifrados con la clave estática de EncryptionUtil
+    public static final int LEGACY_KEY_VERSION = 0;
+
+    private static final int HEADER_LENGTH = 3;
+    private static final char VERSION_SEPARATOR = ':';
+
+    private final EncryptionUtil encryptionUtil;
+    private final DataKeyService dataKeyService;
+
+    public byte[] encrypt(Long userId, String plainText) {
+        int keyVersion = dataKeyService.getActiveKeyVersion();
+        SecretKey dataKey = dataKeyService.getOrCreateDataKey(userId, keyVersion);
+        byte[] header = header(keyVersion);
+        byte[] sealed = encryptionUtil.encrypt(plainText.getBytes(StandardCharsets.UTF_8), dataKey, header, HEADER_LENGTH);
+        System.arraycopy(header, 0, sealed, 0, HEADER_LENGTH);
+        return sealed;
+    }
+
+    public String decrypt(Long userId, byte[] sealed) {
+        if (sealed.length <= HEADER_LENGTH || sealed[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Formato de texto cifrado desconocido");
+        }
+        SecretKey dataKey = dataKeyService.getDataKey(userId, keyVersionOf(sealed));
+        byte[] header = Arrays.copyOf(sealed, HEADER_LENGTH);
+        return new String(encryptionUtil.decrypt(sealed, HEADER_LENGTH, dataKey, header), StandardCharsets.UTF_8);
+    }
+
+    // Descifra una entrada en cualquiera de los formatos almacenados
+    public String decryptPassword(PasswordEntry passwordEntry) {
+        Long userId = passwordEntry.getUser().getId();
+        if (passwordEntry.getPasswordCipher() != null) {
+            return decrypt(userId, passwordEntry.getPasswordCipher());
+        }
+        return decryptLegacy(userId, passwordEntry.getPassword());
+    }
+
+    // Formatos de texto anteriores al binario
+    public String decryptLegacy(Long userId, String storedValue) {
+        int separator = storedValue.indexOf(VERSION_SEPARATOR);
+        if (separator < 0) {
+            // El alfabeto Base64 no contiene ':' -> valor anterior al cifrado por sobres
+            return encryptionUtil.decrypt(storedValue);
+        }
+        int keyVersion = Integer.parseInt(storedValue, 1, separator, 10);
+        SecretKey dataKey = dataKeyService.getDataKey(userId, keyVersion);
+        byte[] decoded = Base64.getDecoder().decode(storedValue.substring(separator + 1));
+        return new String(encryptionUtil.decrypt(decoded, dataKey, null), StandardCharsets.UTF_8);
+    }
+
+    // Versión de clave de un valor binario, leída de la cabecera sin descifrarlo
+    public int keyVersionOf(byte[] sealed) {
+        return ((sealed[1] & 0xFF) << 8) | (sealed[2] & 0xFF);
+    }
+
+    public boolean needsRotation(byte[] sealed) {
+        return keyVersionOf(sealed) != dataKeyService.getActiveKeyVersion();
+    }
+
+    private static byte[] header(int keyVersion) {
+        return new byte[]{FORMAT_VERSION, (byte) (keyVersion >>> 8), (byte) keyVersion};
+    }
+}
@@ -0,0 +1,147 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.PasswordEntry;
+import com.dev.passwordmanager.repository.PasswordEntryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Exporta la bóveda de un usuario escribiendo directamente en la respuesta.
+ *
+ * Las entradas se leen con un cursor del driver, se descifran y escriben de una en una
+ * y se sacan del contexto de persistencia al terminar con ellas, así que el número de
+ * entidades gestionadas no depende del tamaño de la bóveda.
+ */
+@Service
+@RequiredArgsConstructor
+public class VaultExportService {
+
+    private static final String[] CSV_HEADER = {"name", "username", "password", "website", "notes", "category"};
+
+    private final PasswordEntryRepository passwordEntryRepository;
+    private final VaultEncryptionService vaultEncryptionService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON, "json"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: " + value);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void export(Long userId, Format format, OutputStream outputStream) throws IOException {
+        try (Stream<PasswordEntry> entries = passwordEntryRepository.streamByUserId(userId)) {
+            if (format == Format.CSV) {
+                writeCsv(entries, outputStream);
+            } else {
+                writeJson(entries, outputStream);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeJson(Stream<PasswordEntry> entries, OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        entries.forEach(entry -> {
+            try {
+                generator.writeStartObject();
+                generator.writeStringField("name", entry.getName());
+                generator.writeStringField("username", entry.getUsername());
+                generator.writeStringField("password", vaultEncryptionService.decryptPassword(entry));
+                generator.writeStringField("website", entry.getWebsite());
+                generator.writeStringField("notes", entry.getNotes());
+                generator.writeStringField("category", entry.getCategory() != null ? entry.getCategory().getName() : null);
+                generator.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entityManager.detach(entry);
+        });
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private void writeCsv(Stream<PasswordEntry> entries, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writeCsvRow(writer, CSV_HEADER);
+        entries.forEach(entry -> {
+            try {
+                writeCsvRow(writer, new String[]{
+                        entry.getName(),
+                        entry.getUsername(),
+                        vaultEncryptionService.decryptPassword(entry),
+                        entry.getWebsite(),
+                        entry.getNotes(),
+                        entry.getCategory() != null ? entry.getCategory().getName() : null
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entityManager.detach(entry);
+        });
+        writer.flush();
+    }
+
+    // RFC 4180: se entrecomilla el campo si contiene separador, comillas o saltos de línea
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,343 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.dto.password.ImportReportDTO;
+import com.dev.passwordmanager.exception.ResourceNotFoundException;
+import com.dev.passwordmanager.model.Category;
+import com.dev.passwordmanager.model.PasswordEntry;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.CategoryRepository;
+import com.dev.passwordmanager.repository.PasswordEntryRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import com.dev.passwordmanager.utils.CsvReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importa entradas desde CSV exportados por otros gestores (Chrome, Firefox, Bitwarden)
+ * o por la propia aplicación.
+ *
+ * El archivo se lee registro a registro y se procesa por bloques: las categorías se
+ * resuelven una vez por nombre, el cifrado se reparte en un pool acotado compartido por
+ * todas las importaciones y cada bloque se inserta en una transacción con lotes JDBC
+ * (hibernate.jdbc.batch_size). Las filas inválidas no detienen la importación: se
+ * devuelven en el informe con su número de línea.
+ */
+@Slf4j
+@Service
+public class VaultImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // Longitud por defecto de las columnas de texto de password_entries
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private enum Column {
+        NAME("name", "title"),
+        USERNAME("username", "login_username"),
+        PASSWORD("password", "login_password"),
+        WEBSITE("url", "website", "login_uri"),
+        NOTES("notes", "note", "extra"),
+        CATEGORY("category", "folder", "grouping"),
+        // Bitwarden: solo se importan los elementos de tipo login
+        TYPE("type");
+
+        private final List<String> aliases;
+
+        Column(String... aliases) {
+            this.aliases = List.of(aliases);
+        }
+    }
+
+    private final PasswordEntryRepository passwordEntryRepository;
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final VaultEncryptionService vaultEncryptionService;
+    private final BlindIndexService blindIndexService;
+    private final DataKeyService dataKeyService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    // Cola acotada y CallerRuns: con el pool saturado, el hilo de la petición cifra su parte
+    private final ThreadPoolExecutor encryptionPool = new ThreadPoolExecutor(
+            parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(parallelism * 4),
+            runnable -> {
+                Thread thread = new Thread(runnable, "vault-import-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    public VaultImportService(PasswordEntryRepository passwordEntryRepository,
+                              UserRepository userRepository,
+                              CategoryRepository categoryRepository,
+                              VaultEncryptionService vaultEncryptionService,
+                              BlindIndexService blindIndexService,
+                              DataKeyService dataKeyService,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager) {
+        this.passwordEntryRepository = passwordEntryRepository;
+        this.userRepository = userRepository;
+        this.categoryRepository = categoryRepository;
+        this.vaultEncryptionService = vaultEncryptionService;
+        this.blindIndexService = blindIndexService;
+        this.dataKeyService = dataKeyService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ImportReportDTO importCsv(Long userId, InputStream input) throws IOException {
+        long start = System.nanoTime();
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("El archivo CSV está vacío");
+        }
+        int[] columns = resolveColumns(header);
+        if (columns[Column.USERNAME.ordinal()] < 0 || columns[Column.PASSWORD.ordinal()] < 0) {
+            throw new IllegalArgumentException("El CSV debe incluir columnas de usuario y contraseña");
+        }
+
+        // La clave de datos se crea antes de repartir el cifrado entre hilos
+        dataKeyService.getOrCreateDataKey(user.getId(), dataKeyService.getActiveKeyVersion());
+        Map<String, Category> categories = new HashMap<>();
+        categoryRepository.findByUserId(user.getId())
+                .forEach(category -> categories.putIfAbsent(categoryKey(category.getName()), category));
+
+        ImportReportDTO report = new ImportReportDTO();
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (true) {
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IOException e) {
+                // CSV mal formado: se importa lo leído hasta ahora y se informa del punto de corte
+                report.setTotalRows(report.getTotalRows() + 1);
+                addError(report, csv.getRecordLine(), e.getMessage());
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            report.setTotalRows(report.getTotalRows() + 1);
+            ImportRow row = parseRow(record, columns, csv.getRecordLine(), report);
+            if (row != null) {
+                chunk.add(row);
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(user, chunk, categories, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(user, chunk, categories, report);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        report.setFailed(report.getTotalRows() - report.getImported());
+        report.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getImported() * 1e9 / elapsedNanos);
+        log.info("Importación del usuario {}: {} de {} filas en {} ms ({} filas/s)", userId, report.getImported(),
+                report.getTotalRows(), report.getDurationMillis(), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private int[] resolveColumns(List<String> header) {
+        int[] columns = new int[Column.values().length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            for (Column column : Column.values()) {
+                if (columns[column.ordinal()] < 0 && column.aliases.contains(name)) {
+                    columns[column.ordinal()] = i;
+                }
+            }
+        }
+        return columns;
+    }
+
+    private ImportRow parseRow(List<String> record, int[] columns, long line, ImportReportDTO report) {
+        String type = value(record, columns, Column.TYPE);
+        if (type != null && !type.equalsIgnoreCase("login")) {
+            addError(report, line, "Tipo de elemento no soportado: " + type);
+            return null;
+        }
+        String username = value(record, columns, Column.USERNAME);
+        String password = value(record, columns, Column.PASSWORD);
+        String website = value(record, columns, Column.WEBSITE);
+        String notes = value(record, columns, Column.NOTES);
+        String category = value(record, columns, Column.CATEGORY);
+        String name = value(record, columns, Column.NAME);
+        if (name == null) {
+            // Firefox no exporta nombre: se usa el dominio del sitio
+            name = website != null ? BlindIndexService.domainOf(website) : null;
+        }
+        if (name == null) {
+            name = username;
+        }
+
+        String error = null;
+        if (username == null) {
+            error = "Falta el usuario";
+        } else if (password == null) {
+            error = "Falta la contraseña";
+        } else if (exceedsLimit(name, username, password, website, notes, category)) {
+            error = "Algún campo supera los " + MAX_FIELD_LENGTH + " caracteres";
+        }
+        if (error != null) {
+            addError(report, line, error);
+            return null;
+        }
+        return new ImportRow(line, name, username, password, website, notes, category);
+    }
+
+    private void importChunk(User user, List<ImportRow> rows, Map<String, Category> categories, ImportReportDTO report) {
+        try {
+            resolveCategories(user, rows, categories, report);
+            List<PasswordEntry> entries = buildEntries(user, rows, categories);
+            transactionTemplate.executeWithoutResult(status -> {
+                passwordEntryRepository.saveAll(entries);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            report.setImported(report.getImported() + entries.size());
+        } catch (DataAccessException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("No se pudo guardar un bloque de {} filas de la importación: {}", rows.size(), cause);
+            rows.forEach(row -> addError(report, row.line(), "No se pudo guardar la entrada"));
+        }
+    }
+
+    // Crea en su propia transacción las categorías que aún no existen, una vez por nombre
+    private void resolveCategories(User user, List<ImportRow> rows, Map<String, Category> categories, ImportReportDTO report) {
+        Map<String, String> missing = new HashMap<>();
+        for (ImportRow row : rows) {
+            if (row.category() != null && !categories.containsKey(categoryKey(row.category()))) {
+                missing.putIfAbsent(categoryKey(row.category()), row.category());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> missing.forEach((key, name) -> {
+            Category category = new Category();
+            category.setName(name);
+            category.setUser(user);
+            categories.put(key, categoryRepository.save(category));
+        }));
+        report.setCategoriesCreated(report.getCategoriesCreated() + missing.size());
+    }
+
+    // Cifra e indexa el bloque repartiéndolo en tantas partes como hilos tiene el pool
+    private List<PasswordEntry> buildEntries(User user, List<ImportRow> rows, Map<String, Category> categories) {
+        PasswordEntry[] entries = new PasswordEntry[rows.size()];
+        int slices = Math.min(parallelism, rows.size());
+        List<Future<?>> futures = new ArrayList<>(slices);
+        for (int slice = 0; slice < slices; slice++) {
+            int from = rows.size() * slice / slices;
+            int to = rows.size() * (slice + 1) / slices;
+            futures.add(encryptionPool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    entries[i] = toEntry(user, rows.get(i), categories);
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al cifrar las entradas importadas", e.getCause());
+        }
+        return Arrays.asList(entries);
+    }
+
+    private PasswordEntry toEntry(User user, ImportRow row, Map<String, Category> categories) {
+        PasswordEntry passwordEntry = new PasswordEntry();
+        passwordEntry.setName(row.name());
+        passwordEntry.setUsername(row.username());
+        passwordEntry.setPasswordCipher(vaultEncryptionService.encrypt(user.getId(), row.password()));
+        passwordEntry.setWebsite(row.website());
+        passwordEntry.setNotes(row.notes());
+        passwordEntry.setUser(user);
+        if (row.category() != null) {
+            passwordEntry.setCategory(categories.get(categoryKey(row.category())));
+        }
+        blindIndexService.index(passwordEntry, user.getId());
+        return passwordEntry;
+    }
+
+    private static String value(List<String> record, int[] columns, Column column) {
+        int index = columns[column.ordinal()];
+        if (index < 0 || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static boolean exceedsLimit(String... values) {
+        for (String value : values) {
+            if (value != null && value.length() > MAX_FIELD_LENGTH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String categoryKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void addError(ImportReportDTO report, long line, String message) {
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportReportDTO.RowError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        encryptionPool.shutdownNow();
+    }
+
+    private record ImportRow(long line, String name, String username, String password,
+                             String website, String notes, String category) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.dev.passwordmanager.service;
+
+import java.time.Duration;
+
+/**
+ * Códigos de verificación pendientes. Implementaciones: en memoria (una sola instancia)
+ * o en la tabla verification_codes; se elige con verification.code.store.
+ */
+public interface VerificationCodeStore {
+
+    // Guarda un código nuevo; si el email ya tiene el máximo pendiente, se descarta el más antiguo
+    void save(String email, String code, Duration ttl);
+
+    // Consume el código si existe y no ha caducado; cada código vale una sola vez
+    boolean consume(String email, String code);
+
+    // Elimina los códigos caducados o ya usados
+    void purgeExpired();
+}
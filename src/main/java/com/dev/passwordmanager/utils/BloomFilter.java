@@ -0,0 +1,87 @@
+package com.dev.passwordmanager.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom concurrente para cadenas. Sin falsos negativos: si mightContain
+ * devuelve false, el valor no se añadió nunca.
+ *
+ * Los hashes se calculan recorriendo los caracteres, así que consultar no reserva
+ * memoria. No admite borrados; para descartar valores hay que construir otro filtro.
+ */
+public class BloomFilter {
+
+    private static final long SEED_1 = 0xcbf29ce484222325L;
+    private static final long SEED_2 = 0x84222325cbf29ce4L;
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("El número de inserciones esperado debe ser positivo");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * ln2));
+    }
+
+    public void put(CharSequence value) {
+        long hash1 = hash(value, SEED_1);
+        long hash2 = hash(value, SEED_2) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(CharSequence value) {
+        long hash1 = hash(value, SEED_1);
+        long hash2 = hash(value, SEED_2) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return numBits;
+    }
+
+    public int hashCount() {
+        return numHashes;
+    }
+
+    // FNV-1a sobre los caracteres con el finalizador de MurmurHash3 para repartir los bits
+    private static long hash(CharSequence value, long seed) {
+        long h = seed;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,123 @@
+package com.dev.passwordmanager.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché LRU acotada por número de entradas y por tiempo de vida, con contadores
+ * de aciertos, fallos y desalojos.
+ *
+ * El cargador se ejecuta fuera del bloqueo: dos hilos que fallan a la vez sobre la
+ * misma clave pueden cargarla ambos, lo que es aceptable para valores idempotentes.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, CachedValue<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo debe ser positivo");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            CachedValue<V> cached = entries.get(key);
+            if (cached != null) {
+                if (cached.expiresAt - System.nanoTime() > 0) {
+                    hits.increment();
+                    return cached.value;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        CachedValue<V> cached = new CachedValue<>(value, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(key, cached);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    // Publica los contadores como <name>.hits, <name>.misses, <name>.evictions y <name>.size
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder(name + ".hits", this, BoundedCache::hitCount).register(registry);
+        FunctionCounter.builder(name + ".misses", this, BoundedCache::missCount).register(registry);
+        FunctionCounter.builder(name + ".evictions", this, BoundedCache::evictionCount).register(registry);
+        Gauge.builder(name + ".size", this, BoundedCache::size).register(registry);
+    }
+
+    private record CachedValue<V>(V value, long expiresAt) {
+    }
+}
@@ -5,71 +5,162 @@ import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.util.Base64;
 
-import java.security.SecureRandom;
-
+/**
+ * Motor AES-256/GCM reutilizable.
+ *
+ * Formato del texto cifrado (sin cambios respecto a la versión anterior):
+ * Base64( IV[12] || datos cifrados || tag[16] ).
+ *
+ * La clave y la fuente de nonces se construyen una sola vez; como {@link Cipher}
+ * no es thread-safe, cada hilo mantiene su propia instancia y la reinicializa
+ * en cada operación con un IV nuevo.
+ */
 @Component
 public class EncryptionUtil {
     // En producción, esta clave debería estar en un lugar seguro como un vault
     private static final String ENCRYPTION_KEY = "01234567890123456789012345678901"; // 32 bytes para AES-256
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 128;
+    private static final int GCM_TAG_BYTES = GCM_TAG_LENGTH / 8;
 
-    public String encrypt(String data) {
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
         try {
-            // genear IV aleatorio
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM no disponible en esta JVM", e);
+        }
+    });
+
+    private final SecretKey secretKey = new SecretKeySpec(ENCRYPTION_KEY.getBytes(StandardCharsets.US_ASCII), "AES");
+    // SecureRandom es thread-safe: una sola fuente de nonces compartida
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public String encrypt(String data) {
+        return Base64.getEncoder().encodeToString(encrypt(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public String decrypt(String encryptedData) {
+        return new String(decrypt(Base64.getDecoder().decode(encryptedData)), StandardCharsets.UTF_8);
+    }
 
-            // crear clave secreta
-            SecretKey secretKey = new SecretKeySpec(ENCRYPTION_KEY.getBytes(), "AES");
+    // Cifra directamente a IV || datos cifrados || tag, sin pasar por Base64
+    public byte[] encrypt(byte[] data) {
+        return encrypt(data, secretKey, null);
+    }
 
-            // cypher
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
+    public byte[] decrypt(byte[] combined) {
+        return decrypt(combined, secretKey, null);
+    }
 
-            // encriptar
-            byte[] encryptedData = cipher.doFinal(data.getBytes());
+    /**
+     * Igual que {@link #encrypt(byte[])} pero con una clave explícita (p. ej. la clave de datos
+     * de un usuario) y datos asociados opcionales que quedan autenticados por el tag.
+     */
+    public byte[] encrypt(byte[] data, SecretKey key, byte[] associatedData) {
+        return encrypt(data, key, associatedData, 0);
+    }
 
-            // combinar IV y datos encriptados
-            byte[] combined = new byte[iv.length + encryptedData.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(encryptedData, 0, combined, iv.length, encryptedData.length);
+    /**
+     * Como {@link #encrypt(byte[], SecretKey, byte[])}, pero deja libres los primeros
+     * {@code prefixLength} bytes del resultado para que el llamador escriba una cabecera
+     * sin tener que copiar el texto cifrado a otro array.
+     */
+    public byte[] encrypt(byte[] data, SecretKey key, byte[] associatedData, int prefixLength) {
+        try {
+            byte[] iv = newIv();
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            if (associatedData != null) {
+                cipher.updateAAD(associatedData);
+            }
 
-            return Base64.getEncoder().encodeToString(combined);
+            byte[] combined = new byte[prefixLength + GCM_IV_LENGTH + cipher.getOutputSize(data.length)];
+            System.arraycopy(iv, 0, combined, prefixLength, GCM_IV_LENGTH);
+            cipher.doFinal(data, 0, data.length, combined, prefixLength + GCM_IV_LENGTH);
+            return combined;
         } catch (Exception e) {
             throw new RuntimeException("Error en la encriptación: " + e.getMessage(), e);
         }
     }
 
-    public String decrypt(String encryptedData) {
+    public byte[] decrypt(byte[] combined, SecretKey key, byte[] associatedData) {
+        return decrypt(combined, 0, key, associatedData);
+    }
+
+    // Descifra IV || datos cifrados || tag a partir de offset, sin copias intermedias del IV ni del cuerpo
+    public byte[] decrypt(byte[] combined, int offset, SecretKey key, byte[] associatedData) {
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, combined, offset, GCM_IV_LENGTH));
+            if (associatedData != null) {
+                cipher.updateAAD(associatedData);
+            }
+            int bodyOffset = offset + GCM_IV_LENGTH;
+            return cipher.doFinal(combined, bodyOffset, combined.length - bodyOffset);
+        } catch (Exception e) {
+            throw new RuntimeException("Error en la desencriptación: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cifra los bytes restantes de {@code data} y escribe IV || datos cifrados || tag
+     * en {@code out}. Devuelve el número de bytes escritos.
+     */
+    public int encrypt(ByteBuffer data, ByteBuffer out) {
         try {
-            // Decodificar base64
-            byte[] decoded = Base64.getDecoder().decode(encryptedData);
+            byte[] iv = newIv();
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            out.put(iv);
+            return GCM_IV_LENGTH + cipher.doFinal(data, out);
+        } catch (Exception e) {
+            throw new RuntimeException("Error en la encriptación: " + e.getMessage(), e);
+        }
+    }
 
-            // Extraer IV
+    /**
+     * Descifra los bytes restantes de {@code encryptedData} (IV || datos cifrados || tag)
+     * en {@code out}. Devuelve el número de bytes escritos.
+     */
+    public int decrypt(ByteBuffer encryptedData, ByteBuffer out) {
+        try {
             byte[] iv = new byte[GCM_IV_LENGTH];
-            System.arraycopy(decoded, 0, iv, 0, iv.length);
+            encryptedData.get(iv);
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            return cipher.doFinal(encryptedData, out);
+        } catch (Exception e) {
+            throw new RuntimeException("Error en la desencriptación: " + e.getMessage(), e);
+        }
+    }
 
-            // Extraer datos encriptados
-            byte[] encrypted = new byte[decoded.length - GCM_IV_LENGTH];
-            System.arraycopy(decoded, GCM_IV_LENGTH, encrypted, 0, encrypted.length);
+    // Nueva clave AES-256 aleatoria (claves de datos por usuario)
+    public SecretKey generateKey() {
+        byte[] keyBytes = new byte[32];
+        secureRandom.nextBytes(keyBytes);
+        return new SecretKeySpec(keyBytes, "AES");
+    }
 
-            // Crear clave secreta
-            SecretKey secretKey = new SecretKeySpec(ENCRYPTION_KEY.getBytes(), "AES");
+    // Tamaño exacto del texto cifrado para dimensionar buffers de salida
+    public static int encryptedLength(int plaintextLength) {
+        return GCM_IV_LENGTH + plaintextLength + GCM_TAG_BYTES;
+    }
 
-            // Inicializar cipher
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+    // Tamaño máximo del texto plano que puede producir un texto cifrado dado
+    public static int decryptedLength(int encryptedLength) {
+        return Math.max(0, encryptedLength - GCM_IV_LENGTH - GCM_TAG_BYTES);
+    }
 
-            // Desencriptar
-            return new String(cipher.doFinal(encrypted));
-        } catch (Exception e) {
-            throw new RuntimeException("Error en la desencriptación: " + e.getMessage(), e);
-        }
+    private byte[] newIv() {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        return iv;
     }
 }
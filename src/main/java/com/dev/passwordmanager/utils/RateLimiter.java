@@ -0,0 +1,121 @@
+package com.dev.passwordmanager.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket por clave (email, IP...) sin bloqueos.
+ *
+ * Cada cubo es un único AtomicLong con el instante teórico en el que volverá a estar
+ * lleno (GCRA): consumir es leer, comparar y un compareAndSet, sin guardar tokens ni
+ * timestamps por separado. El mapa es un ConcurrentHashMap, que ya reparte las claves
+ * entre segmentos; los cubos que se han rellenado del todo no aportan nada y
+ * {@link #evictIdle()} los quita.
+ */
+public class RateLimiter {
+
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(int capacity, Duration period) {
+        this(capacity, period, System::nanoTime);
+    }
+
+    public RateLimiter(int capacity, Duration period, LongSupplier nanoClock) {
+        if (capacity <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("capacity y period deben ser positivos");
+        }
+        // Un token cada emissionInterval; hasta capacity seguidos
+        this.emissionInterval = period.toNanos() / capacity;
+        this.burstTolerance = emissionInterval * (capacity - 1);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Consume un token de la clave. Devuelve {@link Duration#ZERO} si lo había o, si no,
+     * cuánto falta para el siguiente; en ese caso no se consume nada.
+     */
+    public Duration tryAcquire(String key) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nanoClock.getAsLong()));
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = bucket.get();
+            // Restas en lugar de comparaciones directas: nanoTime puede desbordar
+            long fullAt = current - now > 0 ? current : now;
+            long wait = fullAt - now - burstTolerance;
+            if (wait > 0) {
+                return Duration.ofNanos(wait);
+            }
+            if (bucket.compareAndSet(current, fullAt + emissionInterval)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    // Como tryAcquire pero sin consumir: para comprobar un cubo que solo se carga con fallos
+    public Duration peek(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return Duration.ZERO;
+        }
+        long wait = bucket.get() - nanoClock.getAsLong() - burstTolerance;
+        return wait > 0 ? Duration.ofNanos(wait) : Duration.ZERO;
+    }
+
+    // Devuelve un token consumido con tryAcquire (la operación por la que se pidió no llegó a hacerse)
+    public void refund(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = bucket.get();
+            long refunded = current - emissionInterval;
+            if (bucket.compareAndSet(current, refunded - now > 0 ? refunded : now)) {
+                return;
+            }
+        }
+    }
+
+    // Hace que el siguiente token de la clave tarde al menos wait; si ya faltaba más, no cambia nada
+    public void block(String key, Duration wait) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nanoClock.getAsLong()));
+        while (true) {
+            long current = bucket.get();
+            long blockedUntil = nanoClock.getAsLong() + burstTolerance + wait.toNanos();
+            if (current - blockedUntil >= 0 || bucket.compareAndSet(current, blockedUntil)) {
+                return;
+            }
+        }
+    }
+
+    public Duration getEmissionInterval() {
+        return Duration.ofNanos(emissionInterval);
+    }
+
+    public boolean contains(String key) {
+        return buckets.containsKey(key);
+    }
+
+    public void reset(String key) {
+        buckets.remove(key);
+    }
+
+    // Quita los cubos llenos: volver a crearlos da el mismo resultado. Una petición que
+    // consuma justo mientras se quita su cubo pierde ese consumo; como mucho, un token por pasada
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,99 @@
+package com.dev.passwordmanager.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plantilla con marcadores {{nombre}}, compilada una sola vez.
+ *
+ * Al compilar se separa en trozos literales y marcadores, así que renderizar es
+ * recorrer esa lista y copiar en un StringBuilder ya dimensionado: sin expresiones
+ * regulares ni volver a analizar el texto en cada envío. En plantillas HTML los
+ * valores se escapan; el texto literal se copia tal cual.
+ */
+public final class TextTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    // Margen para los valores al reservar el buffer
+    private static final int VALUE_ALLOWANCE = 32;
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final boolean escapeHtml;
+    private final int capacity;
+
+    private TextTemplate(String[] literals, String[] placeholders, boolean escapeHtml) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.escapeHtml = escapeHtml;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.capacity = length + placeholders.length * VALUE_ALLOWANCE;
+    }
+
+    // literals tiene siempre un elemento más que placeholders: literal, marcador, literal...
+    public static TextTemplate compile(String source, boolean escapeHtml) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Marcador sin cerrar en la posición " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Marcador vacío en la posición " + open);
+            }
+            literals.add(source.substring(position, open));
+            placeholders.add(name);
+            position = close + CLOSE.length();
+        }
+        literals.add(source.substring(position));
+        return new TextTemplate(literals.toArray(String[]::new), placeholders.toArray(String[]::new), escapeHtml);
+    }
+
+    public String render(Map<String, ?> model) {
+        StringBuilder out = new StringBuilder(capacity);
+        out.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            Object value = model.get(placeholders[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Falta el valor de " + placeholders[i]);
+            }
+            if (escapeHtml) {
+                appendEscaped(out, value.toString());
+            } else {
+                out.append(value);
+            }
+            out.append(literals[i + 1]);
+        }
+        return out.toString();
+    }
+
+    public List<String> placeholders() {
+        return List.of(placeholders);
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
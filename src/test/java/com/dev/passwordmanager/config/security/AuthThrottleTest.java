@@ -0,0 +1,169 @@
+package com.dev.passwordmanager.config.security;
+
+import com.dev.passwordmanager.config.ThrottleProperties;
+import com.dev.passwordmanager.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthThrottleTest {
+
+    private static final String EMAIL = "user@test.com";
+    private static final String IP = "203.0.113.10";
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuthThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        // 2 intentos por cuenta, uno cada minuto; bloqueo máximo de 5 minutos
+        ThrottleProperties properties = new ThrottleProperties();
+        properties.setMaxLockout(Duration.ofMinutes(5));
+        ThrottleProperties.Endpoint login = new ThrottleProperties.Endpoint();
+        login.setPerIp(limit(1000, Duration.ofMinutes(1)));
+        login.setPerAccount(limit(2, Duration.ofMinutes(2)));
+        properties.getEndpoints().put(AuthThrottle.LOGIN, login);
+        throttle = new AuthThrottle(properties, meterRegistry, clock::get);
+    }
+
+    @Test
+    void checkLogin_ChargesAccountBeforeAuthenticating() {
+        // Given: dos intentos en curso, sin resultado todavía
+        throttle.checkLogin(EMAIL, IP);
+        throttle.checkLogin(EMAIL, IP);
+
+        // When
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class, () -> throttle.checkLogin(EMAIL, IP));
+
+        // Then
+        assertEquals(Duration.ofMinutes(1), ex.getRetryAfter());
+        assertEquals(1.0, meterRegistry.get("auth.throttle.rejected").tag("scope", "account").counter().count());
+    }
+
+    @Test
+    void checkLogin_ConcurrentAttempts_OnlyCapacityPass() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    throttle.checkLogin(EMAIL, IP);
+                    return true;
+                } catch (RateLimitExceededException e) {
+                    return false;
+                }
+            }));
+        }
+
+        // When
+        start.countDown();
+        int passed = 0;
+        for (Future<Boolean> attempt : attempts) {
+            passed += attempt.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // Then: ninguna comprobación deja pasar más intentos que la capacidad
+        assertEquals(2, passed);
+    }
+
+    @Test
+    void loginSucceeded_ReturnsTheAttempt() {
+        // When/Then
+        for (int i = 0; i < 10; i++) {
+            throttle.checkLogin(EMAIL, IP);
+            throttle.loginSucceeded(EMAIL);
+        }
+    }
+
+    @Test
+    void loginAborted_ReturnsTheAttempt() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            throttle.checkLogin(EMAIL, IP);
+            throttle.loginAborted(EMAIL);
+        }
+
+        // When/Then: los intentos devueltos no cuentan, los siguientes sí
+        throttle.checkLogin(EMAIL, IP);
+        throttle.checkLogin(EMAIL, IP);
+        assertThrows(RateLimitExceededException.class, () -> throttle.checkLogin(EMAIL, IP));
+    }
+
+    @Test
+    void loginFailed_RepeatedLockouts_DoubleUpToMax() {
+        // Given: dos fallos bloquean la cuenta un minuto
+        failedLogin();
+        failedLogin();
+        assertEquals(Duration.ofMinutes(1), retryAfter());
+
+        // When/Then: cada fallo que la vuelve a bloquear dobla el bloqueo, hasta 5 minutos
+        advance(Duration.ofMinutes(1));
+        failedLogin();
+        assertEquals(Duration.ofMinutes(2), retryAfter());
+
+        advance(Duration.ofMinutes(2));
+        failedLogin();
+        assertEquals(Duration.ofMinutes(4), retryAfter());
+
+        advance(Duration.ofMinutes(4));
+        failedLogin();
+        assertEquals(Duration.ofMinutes(5), retryAfter());
+    }
+
+    @Test
+    void loginSucceeded_ResetsEscalation() {
+        // Given: dos bloqueos seguidos
+        failedLogin();
+        failedLogin();
+        advance(Duration.ofMinutes(1));
+        failedLogin();
+        assertEquals(Duration.ofMinutes(2), retryAfter());
+
+        // When
+        advance(Duration.ofMinutes(2));
+        throttle.checkLogin(EMAIL, IP);
+        throttle.loginSucceeded(EMAIL);
+
+        // Then: el siguiente bloqueo vuelve a durar un minuto
+        failedLogin();
+        failedLogin();
+        assertEquals(Duration.ofMinutes(1), retryAfter());
+    }
+
+    private void failedLogin() {
+        throttle.checkLogin(EMAIL, IP);
+        throttle.loginFailed(EMAIL);
+    }
+
+    private Duration retryAfter() {
+        return assertThrows(RateLimitExceededException.class, () -> throttle.checkLogin(EMAIL, IP)).getRetryAfter();
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    private static ThrottleProperties.Limit limit(int capacity, Duration period) {
+        ThrottleProperties.Limit limit = new ThrottleProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setPeriod(period);
+        return limit;
+    }
+}
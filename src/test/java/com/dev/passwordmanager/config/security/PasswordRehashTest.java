@@ -0,0 +1,116 @@
+package com.dev.passwordmanager.config.security;
+
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PasswordRehashTest {
+
+    private static final String EMAIL = "rehash@test.com";
+
+    @Mock
+    private UserRepository userRepository;
+
+    private DaoAuthenticationProvider provider;
+    private PasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        encoder = SecurityConfig.bcrypt(5);
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository);
+        provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService(userDetailsService);
+    }
+
+    @Test
+    void login_LegacyHashWithLowerCost_IsRehashedWithCurrentCost() {
+        // Given: hash anterior, sin prefijo y con coste 4
+        givenUserWithHash(new BCryptPasswordEncoder(4).encode("secreto"));
+
+        // When
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "secreto"));
+
+        // Then
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePassword(eq(EMAIL), hash.capture());
+        assertTrue(hash.getValue().startsWith("{bcrypt}$2a$05$"), hash.getValue());
+        assertTrue(encoder.matches("secreto", hash.getValue()));
+    }
+
+    @Test
+    void login_CurrentHash_IsNotRewritten() {
+        // Given
+        givenUserWithHash(encoder.encode("secreto"));
+
+        // When
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "secreto"));
+
+        // Then
+        verify(userRepository, never()).updatePassword(anyString(), anyString());
+    }
+
+    @Test
+    void login_HigherCostHash_IsNotDowngraded() {
+        // Given: la calibración eligió un coste menor que el ya guardado
+        givenUserWithHash("{bcrypt}" + new BCryptPasswordEncoder(6).encode("secreto"));
+
+        // When
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "secreto"));
+
+        // Then
+        verify(userRepository, never()).updatePassword(anyString(), anyString());
+    }
+
+    @Test
+    void login_WrongPassword_DoesNotRehash() {
+        // Given
+        givenUserWithHash(new BCryptPasswordEncoder(4).encode("secreto"));
+
+        // When/Then
+        assertThrows(BadCredentialsException.class,
+                () -> provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "otro")));
+        verify(userRepository, never()).updatePassword(anyString(), anyString());
+    }
+
+    @Test
+    void calibrate_PicksHighestCostWithinTarget() {
+        long atMin = TimeUnit.MILLISECONDS.toNanos(60);
+
+        // Then: 60 -> 120 -> 240 ms entra en 250; 480 ya no
+        assertEquals(12, BCryptCostCalibrator.select(atMin, TimeUnit.MILLISECONDS.toNanos(250), 10, 16));
+        assertEquals(10, BCryptCostCalibrator.select(atMin, TimeUnit.MILLISECONDS.toNanos(50), 10, 16));
+        assertEquals(16, BCryptCostCalibrator.select(atMin, TimeUnit.SECONDS.toNanos(60), 10, 16));
+    }
+
+    private void givenUserWithHash(String hash) {
+        User user = User.builder()
+                .id(1L)
+                .email(EMAIL)
+                .name("Rehash")
+                .password(hash)
+                .enabled(true)
+                .build();
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    }
+}
@@ -0,0 +1,160 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.config.JwtProperties;
+import com.dev.passwordmanager.config.security.UserSecurity;
+import com.dev.passwordmanager.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "2A472D4B6150645367566B58703273357638792F423F4528482B4D6251655468";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenVersionService tokenVersionService;
+
+    @Mock
+    private TokenDenylist tokenDenylist;
+
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = JwtTestKeys.properties("k1", JwtTestKeys.newKeyPair(), 86400000L);
+        // Los tokens HS256 anteriores a las claves ES256 siguen aceptándose
+        properties.setSecret(SECRET);
+        jwtService = new JwtService(properties);
+
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenVersionService, tokenDenylist);
+        ReflectionTestUtils.setField(filter, "stateless", true);
+
+        testUser = User.builder()
+                .id(7L)
+                .email("jwt@test.com")
+                .name("Jwt User")
+                .password("hash")
+                .enabled(true)
+                .tokenVersion(3)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessToken_BuildsPrincipalFromClaimsWithoutLoadingUser() throws Exception {
+        // Given
+        String token = jwtService.generateToken(new UserSecurity(testUser));
+        when(tokenVersionService.isCurrent(7L, 3)).thenReturn(true);
+
+        // When
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        UserSecurity principal = (UserSecurity) authentication.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("jwt@test.com", principal.getEmail());
+        assertTrue(principal.isEnabled());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void statelessToken_RevokedVersion_IsRejected() throws Exception {
+        // Given: el usuario cambió la contraseña después de emitir el token
+        String token = jwtService.generateToken(new UserSecurity(testUser));
+        when(tokenVersionService.isCurrent(7L, 3)).thenReturn(false);
+
+        // When
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void revokedTokenId_IsRejectedBeforeAnyOtherCheck() throws Exception {
+        // Given: el usuario cerró sesión con este token
+        String token = jwtService.generateToken(new UserSecurity(testUser));
+        when(tokenDenylist.isRevoked(jwtService.verify(token).tokenId())).thenReturn(true);
+
+        // When
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenVersionService, userDetailsService);
+    }
+
+    @Test
+    void tokenWithoutUserId_FallsBackToDatabase() throws Exception {
+        // Given: token HS256 emitido antes de añadir los claims uid/ver
+        String token = Jwts.builder()
+                .setSubject("jwt@test.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        testUser.setTokenVersion(0);
+        when(userDetailsService.loadUserByUsername("jwt@test.com")).thenReturn(new UserSecurity(testUser));
+
+        // When
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenVersionService, tokenDenylist);
+    }
+
+    @Test
+    void statefulMode_RevokedVersion_IsRejected() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(filter, "stateless", false);
+        String token = jwtService.generateToken(new UserSecurity(testUser));
+        testUser.setTokenVersion(4);
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(new UserSecurity(testUser));
+
+        // When
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/passwords");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,204 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.config.JwtProperties;
+import com.dev.passwordmanager.config.security.UserSecurity;
+import com.dev.passwordmanager.model.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtServiceTest {
+
+    private static final String SECRET = "2A472D4B6150645367566B58703273357638792F423F4528482B4D6251655468";
+
+    private KeyPair keyPair;
+    private JwtService jwtService;
+    private UserSecurity testUser;
+
+    @BeforeEach
+    void setUp() {
+        keyPair = JwtTestKeys.newKeyPair();
+        jwtService = new JwtService(JwtTestKeys.properties("k1", keyPair, 60_000L));
+        testUser = new UserSecurity(User.builder()
+                .id(5L)
+                .email("claims@test.com")
+                .name("Claims User")
+                .password("hash")
+                .enabled(true)
+                .tokenVersion(2)
+                .build());
+    }
+
+    @Test
+    void verify_ReturnsAllClaimsFromASingleParse() {
+        // Given
+        String token = jwtService.generateToken(testUser);
+
+        // When
+        JwtClaims claims = jwtService.verify(token);
+
+        // Then
+        assertEquals("claims@test.com", claims.subject());
+        assertEquals(5L, claims.userId());
+        assertTrue(claims.enabled());
+        assertEquals(2, claims.tokenVersion());
+        assertNotNull(claims.tokenId());
+        assertTrue(claims.expiresAt().isAfter(Instant.now()));
+        assertTrue(jwtService.isTokenValid(token, testUser));
+    }
+
+    @Test
+    void generateToken_SignsWithEs256AndActiveKid() {
+        // When
+        String token = jwtService.generateToken(testUser);
+
+        // Then
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+        assertTrue(header.contains("\"alg\":\"ES256\""), header);
+        assertTrue(header.contains("\"kid\":\"k1\""), header);
+    }
+
+    @Test
+    void verify_TokenSignedWithUnknownKid_IsRejected() {
+        // Given
+        String token = new JwtService(JwtTestKeys.properties("k2", JwtTestKeys.newKeyPair(), 60_000L)).generateToken(testUser);
+
+        // When/Then
+        assertThrows(SignatureException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void verify_TokenWithKnownKidButForeignSignature_IsRejected() {
+        // Given: mismo kid, otra clave privada
+        String token = new JwtService(JwtTestKeys.properties("k1", JwtTestKeys.newKeyPair(), 60_000L)).generateToken(testUser);
+
+        // When/Then
+        assertThrows(SignatureException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void rollover_TokensFromPreviousKeyStayValidWhileItIsPublished() {
+        // Given: k1 deja de firmar pero se conserva para verificar
+        String oldToken = jwtService.generateToken(testUser);
+        KeyPair newKeyPair = JwtTestKeys.newKeyPair();
+        JwtProperties properties = JwtTestKeys.properties("k2", newKeyPair, 60_000L);
+        properties.getKeys().add(JwtTestKeys.signingKey("k1", keyPair, false));
+        JwtService rolledOver = new JwtService(properties);
+
+        // When
+        String newToken = rolledOver.generateToken(testUser);
+
+        // Then
+        assertEquals("claims@test.com", rolledOver.verify(oldToken).subject());
+        assertEquals("claims@test.com", rolledOver.verify(newToken).subject());
+        assertThrows(SignatureException.class, () -> jwtService.verify(newToken));
+    }
+
+    @Test
+    void verify_LegacyHs256Token_AcceptedOnlyWithConfiguredSecret() {
+        // Given
+        String legacyToken = Jwts.builder()
+                .setSubject("claims@test.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        JwtProperties properties = JwtTestKeys.properties("k1", keyPair, 60_000L);
+        properties.setSecret(SECRET);
+
+        // When/Then
+        assertEquals("claims@test.com", new JwtService(properties).verify(legacyToken).subject());
+        assertThrows(SignatureException.class, () -> jwtService.verify(legacyToken));
+    }
+
+    @Test
+    void verify_Hs256TokenNamingAnEcKid_IsRejected() {
+        // Given: confusión de algoritmo, HMAC firmado con el secreto pero apuntando a una clave pública
+        String token = Jwts.builder()
+                .setHeaderParam("kid", "k1")
+                .setSubject("claims@test.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        JwtProperties properties = JwtTestKeys.properties("k1", keyPair, 60_000L);
+        properties.setSecret(SECRET);
+
+        // When/Then
+        assertThrows(JwtException.class, () -> new JwtService(properties).verify(token));
+    }
+
+    @Test
+    void verify_ExpiredToken_IsRejected() {
+        // Given
+        String token = new JwtService(JwtTestKeys.properties("k1", keyPair, -1_000L)).generateToken(testUser);
+
+        // When/Then
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void verify_TokenWithoutExpiration_IsRejected() {
+        // Given
+        String token = Jwts.builder()
+                .setHeaderParam("kid", "k1")
+                .setSubject("claims@test.com")
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+
+        // When/Then
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getPublicKeySet_PublishesKeysThatRebuildTheSamePublicKey() throws Exception {
+        // When
+        Map<String, Object> keySet = jwtService.getPublicKeySet();
+
+        // Then
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) keySet.get("keys");
+        assertEquals(1, keys.size());
+        Map<String, Object> jwk = keys.get(0);
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("P-256", jwk.get("crv"));
+        assertEquals("k1", jwk.get("kid"));
+        assertFalse(jwk.containsKey("d"), "El JWK Set no debe incluir la parte privada");
+
+        ECPublicKey original = (ECPublicKey) keyPair.getPublic();
+        ECPoint point = new ECPoint(
+                new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("x"))),
+                new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("y"))));
+        PublicKey rebuilt = KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, original.getParams()));
+        assertArrayEquals(original.getEncoded(), rebuilt.getEncoded());
+    }
+
+    @Test
+    void constructor_NoKeysAndEphemeralNotAllowed_FailsFast() {
+        // Given
+        JwtProperties properties = new JwtProperties();
+        properties.setAllowEphemeralKey(false);
+
+        // When/Then
+        assertThrows(IllegalStateException.class, () -> new JwtService(properties));
+    }
+}
@@ -0,0 +1,45 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.config.JwtProperties;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+// Claves ES256 para tests
+final class JwtTestKeys {
+
+    private JwtTestKeys() {
+    }
+
+    static KeyPair newKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static JwtProperties.SigningKey signingKey(String keyId, KeyPair keyPair, boolean withPrivateKey) {
+        JwtProperties.SigningKey key = new JwtProperties.SigningKey();
+        key.setId(keyId);
+        key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        if (withPrivateKey) {
+            key.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        }
+        return key;
+    }
+
+    static JwtProperties properties(String keyId, KeyPair keyPair, long expiration) {
+        JwtProperties properties = new JwtProperties();
+        properties.setExpiration(expiration);
+        properties.setActiveKeyId(keyId);
+        properties.getKeys().add(signingKey(keyId, keyPair, true));
+        properties.setAllowEphemeralKey(false);
+        return properties;
+    }
+}
@@ -0,0 +1,127 @@
+package com.dev.passwordmanager.config.security.jwt;
+
+import com.dev.passwordmanager.model.RevokedToken;
+import com.dev.passwordmanager.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TokenDenylistTest {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TokenDenylist tokenDenylist;
+
+    @BeforeEach
+    void setUp() {
+        tokenDenylist = newDenylist();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from revoked_tokens");
+    }
+
+    @Test
+    void revoke_TokenIsRejectedUntilItExpires() {
+        // Given
+        String revoked = UUID.randomUUID().toString();
+        String other = UUID.randomUUID().toString();
+
+        // When
+        tokenDenylist.revoke(revoked, Instant.now().plus(Duration.ofMinutes(15)));
+
+        // Then
+        assertTrue(tokenDenylist.isRevoked(revoked));
+        assertFalse(tokenDenylist.isRevoked(other));
+        assertTrue(revokedTokenRepository.existsByTokenId(revoked));
+    }
+
+    @Test
+    void load_RestartedNodeRebuildsFromDatabase() {
+        // Given: revocaciones hechas por otra instancia (o antes de reiniciar)
+        String live = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+        save(live, LocalDateTime.now().plusMinutes(10));
+        save(expired, LocalDateTime.now().minusMinutes(1));
+
+        // When
+        TokenDenylist restarted = newDenylist();
+        restarted.load();
+
+        // Then
+        assertTrue(restarted.isRevoked(live));
+        assertFalse(restarted.isRevoked(expired));
+        assertEquals(1, restarted.size());
+    }
+
+    @Test
+    void sync_PicksUpRevocationsFromOtherNodes() {
+        // Given
+        tokenDenylist.load();
+        String revokedElsewhere = UUID.randomUUID().toString();
+        save(revokedElsewhere, LocalDateTime.now().plusMinutes(10));
+        assertFalse(tokenDenylist.isRevoked(revokedElsewhere));
+
+        // When
+        tokenDenylist.sync();
+
+        // Then
+        assertTrue(tokenDenylist.isRevoked(revokedElsewhere));
+    }
+
+    @Test
+    void purgeExpired_DropsExpiredEntriesFromMemoryAndDatabase() throws Exception {
+        // Given
+        String shortLived = UUID.randomUUID().toString();
+        String longLived = UUID.randomUUID().toString();
+        tokenDenylist.revoke(shortLived, Instant.now().plusMillis(200));
+        tokenDenylist.revoke(longLived, Instant.now().plus(Duration.ofMinutes(15)));
+        Thread.sleep(300);
+
+        // When
+        tokenDenylist.purgeExpired();
+
+        // Then
+        assertEquals(1, tokenDenylist.size());
+        assertFalse(tokenDenylist.isRevoked(shortLived));
+        assertTrue(tokenDenylist.isRevoked(longLived));
+        assertEquals(1, revokedTokenRepository.count());
+    }
+
+    private TokenDenylist newDenylist() {
+        return new TokenDenylist(revokedTokenRepository, transactionManager, new SimpleMeterRegistry(), 1000, 0.001, 10);
+    }
+
+    private void save(String tokenId, LocalDateTime expiresAt) {
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setTokenId(tokenId);
+        revokedToken.setExpiresAt(expiresAt);
+        revokedTokenRepository.save(revokedToken);
+    }
+}
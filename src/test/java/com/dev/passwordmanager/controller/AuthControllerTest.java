@@ -0,0 +1,74 @@
+package com.dev.passwordmanager.controller;
+
+import com.dev.passwordmanager.config.ThrottleProperties;
+import com.dev.passwordmanager.config.security.AuthThrottle;
+import com.dev.passwordmanager.exception.GlobalExceptionHandler;
+import com.dev.passwordmanager.repository.UserRepository;
+import com.dev.passwordmanager.service.AuthService;
+import com.dev.passwordmanager.service.EmailVerificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AuthControllerTest {
+
+    private final AuthService authService = mock(AuthService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // 2 intentos por cuenta y hora: uno cada 30 minutos
+        ThrottleProperties properties = new ThrottleProperties();
+        ThrottleProperties.Endpoint login = new ThrottleProperties.Endpoint();
+        login.setPerAccount(limit(2, Duration.ofHours(1)));
+        properties.getEndpoints().put(AuthThrottle.LOGIN, login);
+        AuthThrottle throttle = new AuthThrottle(properties, new SimpleMeterRegistry());
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new AuthController(authService, mock(EmailVerificationService.class),
+                        mock(UserRepository.class), throttle))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void login_AccountLocked_Returns429WithRetryAfter() throws Exception {
+        // Given
+        when(authService.login(any(), any(), any())).thenThrow(new BadCredentialsException("Credenciales inválidas"));
+        mockMvc.perform(login()).andExpect(status().isBadRequest());
+        mockMvc.perform(login()).andExpect(status().isBadRequest());
+
+        // When/Then: bloqueada 30 minutos, sin llegar a autenticar
+        mockMvc.perform(login())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1800"));
+        verify(authService, times(2)).login(any(), any(), any());
+    }
+
+    private static MockHttpServletRequestBuilder login() {
+        return post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"user@test.com\",\"password\":\"incorrecta\"}");
+    }
+
+    private static ThrottleProperties.Limit limit(int capacity, Duration period) {
+        ThrottleProperties.Limit limit = new ThrottleProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setPeriod(period);
+        return limit;
+    }
+}
@@ -0,0 +1,114 @@
+package com.dev.passwordmanager.controller;
+
+import com.dev.passwordmanager.service.ImageService;
+import com.dev.passwordmanager.service.ProfileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ProfileControllerTest {
+
+    private static final long PHOTO_ID = 7L;
+
+    private final ImageService imageService = mock(ImageService.class);
+    private MockMvc mockMvc;
+    private byte[] image;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ProfileController(mock(ProfileService.class), imageService))
+                .build();
+        storeImage(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+    }
+
+    @Test
+    void getImage_WithoutRange_ReturnsWholeImage() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/profile/image/{id}", PHOTO_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "10"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void getImage_SingleRange_Returns206WithContentRange() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/profile/image/{id}", PHOTO_ID).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "4"))
+                .andExpect(content().bytes(new byte[]{2, 3, 4, 5}));
+        verify(imageService).writeImage(eq(PHOTO_ID), eq(2L), eq(4L), any());
+    }
+
+    @Test
+    void getImage_SuffixRange_ReturnsLastBytes() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/profile/image/{id}", PHOTO_ID).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().bytes(new byte[]{7, 8, 9}));
+    }
+
+    @Test
+    void getImage_RangeBeyondImage_Returns416() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/profile/image/{id}", PHOTO_ID).header(HttpHeaders.RANGE, "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+        verify(imageService, never()).writeImage(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getImage_MalformedOrMultipleRanges_AreIgnored() throws Exception {
+        // When/Then: se sirve la imagen completa
+        for (String range : new String[]{"bytes=abc", "items=0-3", "bytes=0-1,4-5"}) {
+            mockMvc.perform(get("/api/profile/image/{id}", PHOTO_ID).header(HttpHeaders.RANGE, range))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                    .andExpect(content().bytes(image));
+        }
+    }
+
+    @Test
+    void getImage_ZeroLength_ReturnsEmptyBodyOr416() throws Exception {
+        // Given
+        storeImage(new byte[0]);
+
+        // When/Then: sin Range, 200 vacío; con Range no hay ningún byte que servir
+        mockMvc.perform(get("/api/profile/image/{id}", PHOTO_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "0"))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/profile/image/{id}", PHOTO_ID).header(HttpHeaders.RANGE, "bytes=0-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */0"));
+    }
+
+    // El servicio simulado copia el trozo pedido, como hace ImageService desde el blob
+    private void storeImage(byte[] bytes) throws Exception {
+        image = bytes;
+        when(imageService.getImageInfo(PHOTO_ID)).thenReturn(new ImageService.ImageInfo("image/png", "avatar.png", bytes.length));
+        doAnswer(invocation -> {
+            int offset = Math.toIntExact(invocation.<Long>getArgument(1));
+            int length = Math.toIntExact(invocation.<Long>getArgument(2));
+            invocation.<OutputStream>getArgument(3).write(Arrays.copyOfRange(bytes, offset, offset + length));
+            return null;
+        }).when(imageService).writeImage(eq(PHOTO_ID), anyLong(), anyLong(), any());
+    }
+}
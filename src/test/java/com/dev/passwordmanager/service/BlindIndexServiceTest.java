@@ -0,0 +1,57 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.config.EncryptionProperties;
+import com.dev.passwordmanager.model.PasswordEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlindIndexServiceTest {
+
+    private BlindIndexService blindIndexService;
+
+    @BeforeEach
+    void setUp() {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setMasterKey("GDJW0Wc9weOYPMOb5hpKgwVJovPcvbXFiv81LNiH0rc=");
+        blindIndexService = new BlindIndexService(properties);
+    }
+
+    @Test
+    void usernameToken_IgnoresCaseAndSurroundingSpaces() {
+        // When/Then
+        assertEquals(blindIndexService.usernameToken(1L, "Alice@Example.com"),
+                blindIndexService.usernameToken(1L, "  alice@example.com "));
+    }
+
+    @Test
+    void tokens_DifferBetweenUsersAndColumns() {
+        // When/Then
+        assertNotEquals(blindIndexService.usernameToken(1L, "alice"), blindIndexService.usernameToken(2L, "alice"));
+        assertNotEquals(blindIndexService.usernameToken(1L, "alice"), blindIndexService.websiteToken(1L, "alice"));
+    }
+
+    @Test
+    void domainToken_MatchesBareDomainAndFullUrl() {
+        // When/Then
+        assertEquals("github.com", BlindIndexService.domainOf("https://www.GitHub.com:443/login?next=/"));
+        assertEquals(blindIndexService.domainToken(1L, "github.com"),
+                blindIndexService.domainToken(1L, "https://www.github.com/login"));
+    }
+
+    @Test
+    void index_BlankValues_LeaveNullTokens() {
+        // Given
+        PasswordEntry entry = new PasswordEntry();
+        entry.setUsername(" ");
+
+        // When
+        blindIndexService.index(entry, 1L);
+
+        // Then
+        assertNull(entry.getUsernameIndex());
+        assertNull(entry.getWebsiteIndex());
+        assertNull(entry.getWebsiteDomainIndex());
+    }
+}
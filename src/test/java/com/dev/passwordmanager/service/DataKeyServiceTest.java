@@ -0,0 +1,111 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.UserDataKeyRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Sin transacción de test: cada caso controla la suya
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(VaultTestConfig.class)
+public class DataKeyServiceTest {
+
+    @Autowired
+    private DataKeyService dataKeyService;
+
+    @Autowired
+    private UserDataKeyRepository userDataKeyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setEmail("datakey@test.com");
+        testUser.setPassword("hash");
+        testUser.setName("Data Key User");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from user_data_keys");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void getOrCreateDataKey_InsideTransaction_IsStoredWithIt() {
+        // When
+        SecretKey created = new TransactionTemplate(transactionManager).execute(status -> {
+            SecretKey key = dataKeyService.getOrCreateDataKey(testUser.getId(), 1);
+            // Dentro de la misma transacción se devuelve la misma clave
+            assertEquals(key, dataKeyService.getDataKey(testUser.getId(), 1));
+            return key;
+        });
+
+        // Then
+        assertEquals(1, userDataKeyRepository.count());
+        assertEquals(created, dataKeyService.getDataKey(testUser.getId(), 1));
+    }
+
+    @Test
+    void getOrCreateDataKey_TransactionRolledBack_KeyIsNotCached() {
+        // Given
+        SecretKey discarded = new TransactionTemplate(transactionManager).execute(status -> {
+            SecretKey key = dataKeyService.getOrCreateDataKey(testUser.getId(), 1);
+            status.setRollbackOnly();
+            return key;
+        });
+
+        // Then: ni en la base de datos ni en la caché
+        assertEquals(0, userDataKeyRepository.count());
+        assertThrows(IllegalStateException.class, () -> dataKeyService.getDataKey(testUser.getId(), 1));
+
+        // When
+        SecretKey created = dataKeyService.getOrCreateDataKey(testUser.getId(), 1);
+
+        // Then
+        assertNotEquals(discarded, created);
+        assertEquals(1, userDataKeyRepository.count());
+    }
+
+    @Test
+    void getOrCreateDataKey_AlreadyStored_ReturnsStoredKey() {
+        // Given
+        SecretKey created = dataKeyService.getOrCreateDataKey(testUser.getId(), 1);
+
+        // When: la clave ya existe; no se crea otra
+        SecretKey again = new TransactionTemplate(transactionManager).execute(status ->
+                dataKeyService.getOrCreateDataKey(testUser.getId(), 1));
+
+        // Then
+        assertEquals(created, again);
+        assertEquals(1, userDataKeyRepository.count());
+    }
+}
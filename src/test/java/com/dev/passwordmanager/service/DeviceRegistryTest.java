@@ -0,0 +1,298 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.KnownDevice;
+import com.dev.passwordmanager.model.MailOutbox;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.KnownDeviceRepository;
+import com.dev.passwordmanager.repository.MailOutboxRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Sin transacción de test: flush confirma su propia transacción
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DeviceRegistryTest {
+
+    private static final String FIREFOX = "Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0";
+    private static final String CHROME = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/126.0 Safari/537.36";
+    private static final String SAFARI = "Mozilla/5.0 (iPhone; CPU iPhone OS 17_5 like Mac OS X) Safari/604.1";
+
+    @Autowired
+    private KnownDeviceRepository knownDeviceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+    private MailOutboxService outbox;
+    private DeviceRegistry deviceRegistry;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testUser = new User();
+        testUser.setEmail("devices@test.com");
+        testUser.setPassword("hash");
+        testUser.setName("Device User");
+        testUser = userRepository.save(testUser);
+
+        // El outbox no se despacha: basta con ver las filas encoladas
+        outbox = new MailOutboxService(mailOutboxRepository, new JavaMailSenderImpl(),
+                transactionManager, new SimpleMeterRegistry(), "no-reply@test.com", 10, 8,
+                Duration.ofSeconds(30), Duration.ofHours(1));
+        deviceRegistry = newRegistry(20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from known_devices");
+        jdbcTemplate.update("delete from mail_outbox");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void flush_FirstDevice_IsRegisteredWithoutAlert() {
+        // When
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.flush();
+        clock.advance(Duration.ofHours(1));
+        deviceRegistry.flush();
+
+        // Then
+        assertEquals(1, knownDeviceRepository.count());
+        assertEquals(0, mailOutboxRepository.count());
+    }
+
+    @Test
+    void recordLogin_NothingIsWrittenUntilFlush() {
+        // When
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+
+        // Then
+        assertEquals(0, knownDeviceRepository.count());
+    }
+
+    @Test
+    void flush_KnownDevice_UpdatesLastSeenOnce() {
+        // Given
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.flush();
+
+        // When: varios logins en el mismo intervalo, otra IP de la misma red /24
+        clock.advance(Duration.ofMinutes(30));
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.77");
+        deviceRegistry.flush();
+
+        // Then
+        List<KnownDevice> devices = knownDeviceRepository.findByUserIds(Set.of(testUser.getId()));
+        assertEquals(1, devices.size());
+        KnownDevice device = devices.get(0);
+        assertEquals("203.0.113.77", device.getIpAddress());
+        assertEquals(device.getFirstSeenAt().plusMinutes(30), device.getLastSeenAt());
+        assertEquals(0, mailOutboxRepository.count());
+    }
+
+    @Test
+    void flush_NewDevicesWithinWindow_SendSingleAlert() {
+        // Given
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.flush();
+
+        // When: dos dispositivos nuevos en flushes distintos, dentro de la ventana
+        deviceRegistry.recordLogin(testUser, CHROME, "198.51.100.4");
+        deviceRegistry.flush();
+        clock.advance(Duration.ofMinutes(4));
+        deviceRegistry.recordLogin(testUser, SAFARI, "2001:db8:1::5");
+        deviceRegistry.flush();
+
+        // Then: aún dentro de la ventana no se envía nada
+        assertEquals(3, knownDeviceRepository.count());
+        assertEquals(0, mailOutboxRepository.count());
+
+        // When: vence la ventana
+        clock.advance(Duration.ofMinutes(7));
+        deviceRegistry.flush();
+        deviceRegistry.flush();
+
+        // Then
+        List<MailOutbox> mails = mailOutboxRepository.findAll();
+        assertEquals(1, mails.size());
+        MailOutbox mail = mails.get(0);
+        assertEquals("devices@test.com", mail.getRecipient());
+        assertTrue(mail.getBody().contains("198.51.100.4"), mail.getBody());
+        assertTrue(mail.getBody().contains("2001:db8:1::5"), mail.getBody());
+        assertFalse(mail.getBody().contains("203.0.113.10"), mail.getBody());
+        assertNotNull(mail.getHtmlBody());
+    }
+
+    @Test
+    void flush_KnownBrowserOnNetworkUsedBefore_IsNotAlerted() {
+        // Given: Firefox en casa y Chrome en la oficina
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.flush();
+        deviceRegistry.recordLogin(testUser, CHROME, "198.51.100.4");
+        deviceRegistry.flush();
+        clock.advance(Duration.ofMinutes(11));
+        deviceRegistry.flush();
+        mailOutboxRepository.deleteAll();
+
+        // When: Firefox, con otra versión menor, desde la oficina
+        deviceRegistry.recordLogin(testUser, FIREFOX.replace("128.0", "128.1"), "198.51.100.9");
+        deviceRegistry.flush();
+        clock.advance(Duration.ofMinutes(11));
+        deviceRegistry.flush();
+
+        // Then: se guarda la combinación, sin aviso
+        assertEquals(3, knownDeviceRepository.count());
+        assertEquals(0, mailOutboxRepository.count());
+    }
+
+    @Test
+    void flush_KnownBrowserOnNewNetwork_IsAlerted() {
+        // Given
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.flush();
+
+        // When
+        deviceRegistry.recordLogin(testUser, FIREFOX, "192.0.2.50");
+        deviceRegistry.flush();
+        clock.advance(Duration.ofMinutes(11));
+        deviceRegistry.flush();
+
+        // Then
+        List<MailOutbox> mails = mailOutboxRepository.findAll();
+        assertEquals(1, mails.size());
+        assertTrue(mails.get(0).getBody().contains("192.0.2.50"), mails.get(0).getBody());
+    }
+
+    @Test
+    void flush_OverLimit_EvictsLeastRecentlySeen() throws Exception {
+        // Given: como mucho 2 por usuario
+        deviceRegistry = newRegistry(2);
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.flush();
+        clock.advance(Duration.ofMinutes(1));
+        deviceRegistry.recordLogin(testUser, CHROME, "198.51.100.4");
+        deviceRegistry.flush();
+
+        // When
+        clock.advance(Duration.ofMinutes(1));
+        deviceRegistry.recordLogin(testUser, SAFARI, "2001:db8:1::5");
+        deviceRegistry.flush();
+
+        // Then: se descarta Firefox, el usado hace más tiempo
+        List<KnownDevice> devices = knownDeviceRepository.findByUserIds(Set.of(testUser.getId()));
+        assertEquals(2, devices.size());
+        assertTrue(devices.stream().noneMatch(device -> device.getUserAgent().equals(FIREFOX)));
+    }
+
+    @Test
+    void purgeStale_DeletesDevicesNotSeenWithinRetention() {
+        // Given
+        deviceRegistry.recordLogin(testUser, FIREFOX, "203.0.113.10");
+        deviceRegistry.flush();
+        clock.advance(Duration.ofDays(200));
+        deviceRegistry.recordLogin(testUser, CHROME, "198.51.100.4");
+        deviceRegistry.flush();
+
+        // When
+        deviceRegistry.purgeStale();
+
+        // Then
+        List<KnownDevice> devices = knownDeviceRepository.findByUserIds(Set.of(testUser.getId()));
+        assertEquals(1, devices.size());
+        assertEquals(CHROME, devices.get(0).getUserAgent());
+    }
+
+    @Test
+    void normalizeUserAgent_KeepsFamilyMajorVersionAndSystem() {
+        assertEquals("Firefox 128 / Linux", DeviceRegistry.normalizeUserAgent(FIREFOX));
+        assertEquals("Chrome 126 / Windows", DeviceRegistry.normalizeUserAgent(CHROME));
+        assertEquals("Safari / iOS", DeviceRegistry.normalizeUserAgent(SAFARI));
+        assertEquals("Edge 126 / Windows", DeviceRegistry.normalizeUserAgent(CHROME + " Edg/126.0.2592.87"));
+    }
+
+    @Test
+    void fingerprint_IgnoresMinorVersionsButNotMajor() {
+        assertArrayEquals(DeviceRegistry.fingerprint(FIREFOX), DeviceRegistry.fingerprint(FIREFOX.replace("128.0", "128.3")));
+        assertFalse(Arrays.equals(DeviceRegistry.fingerprint(FIREFOX), DeviceRegistry.fingerprint(FIREFOX.replace("128.0", "129.0"))));
+        assertFalse(Arrays.equals(DeviceRegistry.fingerprint(FIREFOX), DeviceRegistry.fingerprint(CHROME)));
+    }
+
+    @Test
+    void network_SameNetwork_IsEqual() {
+        assertEquals("203.0.113.0/24", DeviceRegistry.network("203.0.113.10"));
+        assertEquals(DeviceRegistry.network("203.0.113.10"), DeviceRegistry.network("203.0.113.200"));
+        assertEquals(DeviceRegistry.network("2001:db8:1::5"), DeviceRegistry.network("2001:db8:1:ff::1"));
+        assertNotEquals(DeviceRegistry.network("203.0.113.10"), DeviceRegistry.network("203.0.114.10"));
+        assertEquals("", DeviceRegistry.network(null));
+    }
+
+    private DeviceRegistry newRegistry(int maxPerUser) throws Exception {
+        return new DeviceRegistry(knownDeviceRepository, userRepository, outbox, new MailTemplateService(),
+                transactionManager, new SimpleMeterRegistry(), 100, Duration.ofMinutes(10),
+                maxPerUser, Duration.ofDays(180), 1000, clock);
+    }
+
+    // Reloj que el test adelanta a mano
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.Photo;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ImageService.class)
+public class ImageServiceTest {
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+    private byte[] imageBytes;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setEmail("image@test.com");
+        testUser.setPassword("hash");
+        testUser.setName("Image User");
+        testUser = userRepository.save(testUser);
+
+        // Más grande que un trozo, para pasar por varias lecturas
+        imageBytes = new byte[20_000];
+        for (int i = 0; i < imageBytes.length; i++) {
+            imageBytes[i] = (byte) (i * 31);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("delete from photos");
+    }
+
+    @Test
+    void getImageInfo_ReturnsStoredTypeAndSize() throws Exception {
+        // Given
+        Photo photo = imageService.savePhoto(new MockMultipartFile("image", "avatar.png", "image/png", imageBytes), testUser.getId());
+
+        // When
+        ImageService.ImageInfo info = imageService.getImageInfo(photo.getId());
+
+        // Then
+        assertEquals("image/png", info.contentType());
+        assertEquals("avatar.png", info.fileName());
+        assertEquals(imageBytes.length, info.length());
+    }
+
+    @Test
+    void getImageInfo_NonImageType_IsServedAsOctetStream() throws Exception {
+        // Given
+        Photo html = imageService.savePhoto(new MockMultipartFile("image", "x.html", "text/html", imageBytes), testUser.getId());
+        Photo svg = imageService.savePhoto(new MockMultipartFile("image", "x.svg", "image/svg+xml", imageBytes), testUser.getId());
+
+        // Then
+        assertEquals("application/octet-stream", imageService.getImageInfo(html.getId()).contentType());
+        assertEquals("application/octet-stream", imageService.getImageInfo(svg.getId()).contentType());
+    }
+
+    @Test
+    void writeImage_WholeImage_CopiesAllBytes() throws Exception {
+        // Given
+        Photo photo = imageService.savePhoto(new MockMultipartFile("image", "avatar.jpg", "image/jpeg", imageBytes), testUser.getId());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        imageService.writeImage(photo.getId(), 0, imageBytes.length, out);
+
+        // Then
+        assertArrayEquals(imageBytes, out.toByteArray());
+    }
+
+    @Test
+    void writeImage_Range_CopiesOnlyThatSlice() throws Exception {
+        // Given
+        Photo photo = imageService.savePhoto(new MockMultipartFile("image", "avatar.jpg", "image/jpeg", imageBytes), testUser.getId());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When: bytes 9000-18999
+        imageService.writeImage(photo.getId(), 9000, 10_000, out);
+
+        // Then
+        assertArrayEquals(Arrays.copyOfRange(imageBytes, 9000, 19_000), out.toByteArray());
+    }
+
+    @Test
+    void getUserPhotoId_WithoutPhoto_ReturnsNull() throws Exception {
+        // Then
+        assertNull(imageService.getUserPhotoId(testUser.getId()));
+
+        // When
+        Photo photo = imageService.savePhoto(new MockMultipartFile("image", "avatar.jpg", "image/jpeg", imageBytes), testUser.getId());
+
+        // Then
+        assertEquals(photo.getId(), imageService.getUserPhotoId(testUser.getId()));
+    }
+}
@@ -0,0 +1,64 @@
+package com.dev.passwordmanager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryVerificationCodeStoreTest {
+
+    private final InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(2);
+
+    @Test
+    void consume_ValidCode_SucceedsOnlyOnce() {
+        // Given
+        store.save("a@test.com", "123456", Duration.ofMinutes(10));
+
+        // When/Then
+        assertFalse(store.consume("a@test.com", "000000"));
+        assertFalse(store.consume("b@test.com", "123456"));
+        assertTrue(store.consume("a@test.com", "123456"));
+        assertFalse(store.consume("a@test.com", "123456"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void consume_ExpiredCode_IsRejected() {
+        // Given
+        store.save("a@test.com", "123456", Duration.ofMillis(-1));
+
+        // When/Then
+        assertFalse(store.consume("a@test.com", "123456"));
+    }
+
+    @Test
+    void save_BeyondMaxOutstanding_DropsOldestCode() {
+        // Given
+        store.save("a@test.com", "111111", Duration.ofMinutes(10));
+        store.save("a@test.com", "222222", Duration.ofMinutes(10));
+
+        // When
+        store.save("a@test.com", "333333", Duration.ofMinutes(10));
+
+        // Then
+        assertEquals(2, store.size());
+        assertFalse(store.consume("a@test.com", "111111"));
+        assertTrue(store.consume("a@test.com", "222222"));
+        assertTrue(store.consume("a@test.com", "333333"));
+    }
+
+    @Test
+    void purgeExpired_RemovesOnlyExpiredCodes() {
+        // Given
+        store.save("a@test.com", "111111", Duration.ofMillis(-1));
+        store.save("b@test.com", "222222", Duration.ofMinutes(10));
+
+        // When
+        store.purgeExpired();
+
+        // Then
+        assertEquals(1, store.size());
+        assertTrue(store.consume("b@test.com", "222222"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.VerificationCode;
+import com.dev.passwordmanager.repository.VerificationCodeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(JpaVerificationCodeStore.class)
+@TestPropertySource(properties = {
+        "verification.code.max-outstanding=2",
+        "verification.code.purge-batch-size=2"
+})
+public class JpaVerificationCodeStoreTest {
+
+    @Autowired
+    private JpaVerificationCodeStore store;
+
+    @Autowired
+    private VerificationCodeRepository verificationCodeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from verification_codes");
+    }
+
+    @Test
+    void consume_ValidCode_DeletesRowAndCannotBeReused() {
+        // Given
+        store.save("a@test.com", "123456", Duration.ofMinutes(10));
+
+        // When/Then
+        assertFalse(store.consume("a@test.com", "000000"));
+        assertTrue(store.consume("a@test.com", "123456"));
+        assertFalse(store.consume("a@test.com", "123456"));
+        assertEquals(0, verificationCodeRepository.count());
+    }
+
+    @Test
+    void consume_ExpiredCode_IsRejected() {
+        // Given
+        store.save("a@test.com", "123456", Duration.ofMinutes(-1));
+
+        // When/Then
+        assertFalse(store.consume("a@test.com", "123456"));
+    }
+
+    @Test
+    void save_BeyondMaxOutstanding_DropsOldestCode() {
+        // Given
+        store.save("a@test.com", "111111", Duration.ofMinutes(10));
+        store.save("a@test.com", "222222", Duration.ofMinutes(10));
+
+        // When
+        store.save("a@test.com", "333333", Duration.ofMinutes(10));
+
+        // Then
+        assertEquals(2, verificationCodeRepository.count());
+        assertFalse(store.consume("a@test.com", "111111"));
+        assertTrue(store.consume("a@test.com", "333333"));
+    }
+
+    @Test
+    void purgeExpired_DeletesExpiredAndUsedRowsInBatches() {
+        // Given: 3 caducados, 1 usado (filas de antes de este cambio) y 1 vigente
+        for (int i = 0; i < 3; i++) {
+            save("old" + i + "@test.com", LocalDateTime.now().minusMinutes(1), false);
+        }
+        save("used@test.com", LocalDateTime.now().plusMinutes(10), true);
+        store.save("live@test.com", "123456", Duration.ofMinutes(10));
+
+        // When
+        store.purgeExpired();
+
+        // Then
+        assertEquals(1, verificationCodeRepository.count());
+        assertTrue(store.consume("live@test.com", "123456"));
+    }
+
+    private void save(String email, LocalDateTime expiryDate, boolean used) {
+        VerificationCode verificationCode = new VerificationCode();
+        verificationCode.setEmail(email);
+        verificationCode.setCode("999999");
+        verificationCode.setExpiryDate(expiryDate);
+        verificationCode.setUsed(used);
+        verificationCodeRepository.save(verificationCode);
+    }
+}
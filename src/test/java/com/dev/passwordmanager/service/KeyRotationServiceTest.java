@@ -0,0 +1,203 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.config.EncryptionProperties;
+import com.dev.passwordmanager.model.KeyRotationCheckpoint;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.KeyRotationCheckpointRepository;
+import com.dev.passwordmanager.repository.PasswordEntryRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import com.dev.passwordmanager.utils.EncryptionUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Sin transacción de test: cada lote confirma la suya, como en producción
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(VaultTestConfig.class)
+public class KeyRotationServiceTest {
+
+    private static final int TARGET_VERSION = 1;
+
+    @Autowired
+    private PasswordEntryRepository passwordEntryRepository;
+
+    @Autowired
+    private KeyRotationCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private VaultEncryptionService vaultEncryptionService;
+
+    @Autowired
+    private BlindIndexService blindIndexService;
+
+    @Autowired
+    private DataKeyService dataKeyService;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setEmail("rotation@test.com");
+        testUser.setPassword("hash");
+        testUser.setName("Rotation User");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from key_rotation_checkpoints");
+        jdbcTemplate.update("delete from password_entries");
+        jdbcTemplate.update("delete from user_data_keys");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void rotate_StoppedPartway_ResumesFromCheckpoint() throws Exception {
+        // Given: 10 filas en el formato de texto anterior, lotes de 3
+        seedLegacy(10);
+        KeyRotationService first = newRotation(vaultEncryptionService, 3, 10_000);
+        first.createCheckpointIfMissing(TARGET_VERSION);
+
+        // When: dos lotes y "caída"
+        runBatch(first);
+        runBatch(first);
+
+        // Then
+        KeyRotationCheckpoint checkpoint = checkpointRepository.findById(TARGET_VERSION).orElseThrow();
+        assertEquals(6, checkpoint.getLastEntryId());
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(6, migratedRows());
+
+        // Given: una fila ya recorrida vuelve al formato anterior; si se repitiera el recorrido se migraría otra vez
+        jdbcTemplate.update("update password_entries set password = ?, password_cipher = null where id = 1",
+                encryptionUtil.encrypt("secret-0"));
+
+        // When: otra instancia (o un reinicio) retoma la rotación
+        newRotation(vaultEncryptionService, 3, 10_000).rotate(TARGET_VERSION);
+
+        // Then: sigue desde el id 7, sin volver a las anteriores
+        checkpoint = checkpointRepository.findById(TARGET_VERSION).orElseThrow();
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(10, checkpoint.getLastEntryId());
+        assertEquals(10, checkpoint.getRowsRotated());
+        assertEquals(9, migratedRows());
+        assertNull(jdbcTemplate.queryForObject("select password_cipher from password_entries where id = 1", byte[].class));
+        assertEquals("secret-9", vaultEncryptionService.decryptPassword(passwordEntryRepository.findById(10L).orElseThrow()));
+    }
+
+    @Test
+    void rotate_UndecryptableRow_IsSkippedAndCounted() throws Exception {
+        // Given: la fila 3 tiene un texto cifrado corrupto
+        seedLegacy(5);
+        byte[] garbage = new byte[40];
+        jdbcTemplate.update("update password_entries set password = ? where id = 3", Base64.getEncoder().encodeToString(garbage));
+
+        // When
+        newRotation(vaultEncryptionService, 2, 10_000).rotate(TARGET_VERSION);
+
+        // Then: el recorrido termina; la fila mala sigue como estaba
+        KeyRotationCheckpoint checkpoint = checkpointRepository.findById(TARGET_VERSION).orElseThrow();
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(5, checkpoint.getLastEntryId());
+        assertEquals(4, checkpoint.getRowsRotated());
+        assertEquals(1, checkpoint.getRowsFailed());
+        assertEquals(4, migratedRows());
+        assertNull(jdbcTemplate.queryForObject("select password_cipher from password_entries where id = 3", byte[].class));
+    }
+
+    @Test
+    void rotate_RowChangedConcurrently_CompareAndSetSkipsIt() throws Exception {
+        // Given: el usuario cambia la fila 2 mientras la rotación la está re-cifrando
+        seedLegacy(3);
+        VaultEncryptionService racing = new VaultEncryptionService(encryptionUtil, dataKeyService) {
+            @Override
+            public byte[] encrypt(Long userId, String plainText) {
+                if (plainText.equals("secret-1")) {
+                    jdbcTemplate.update("update password_entries set password = null, password_cipher = ? where id = 2",
+                            super.encrypt(userId, "edited-by-user"));
+                }
+                return super.encrypt(userId, plainText);
+            }
+        };
+
+        // When
+        newRotation(racing, 10, 10_000).rotate(TARGET_VERSION);
+
+        // Then: la escritura del usuario se conserva y no cuenta como rotada
+        KeyRotationCheckpoint checkpoint = checkpointRepository.findById(TARGET_VERSION).orElseThrow();
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(2, checkpoint.getRowsRotated());
+        assertEquals(0, checkpoint.getRowsFailed());
+        assertEquals("edited-by-user", vaultEncryptionService.decryptPassword(passwordEntryRepository.findById(2L).orElseThrow()));
+    }
+
+    @Test
+    void rotate_LimitsRowsPerSecond() throws Exception {
+        // Given: 6 filas a 20 filas/s
+        seedLegacy(6);
+        KeyRotationService rotation = newRotation(vaultEncryptionService, 2, 20);
+
+        // When
+        long start = System.nanoTime();
+        rotation.rotate(TARGET_VERSION);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then: unos 300 ms como mínimo
+        assertEquals(6, migratedRows());
+        assertTrue(elapsedMillis >= 250, "La rotación tardó " + elapsedMillis + " ms");
+    }
+
+    private KeyRotationService newRotation(VaultEncryptionService encryption, int batchSize, int rowsPerSecond) {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.getRotation().setBatchSize(batchSize);
+        properties.getRotation().setRowsPerSecond(rowsPerSecond);
+        return new KeyRotationService(passwordEntryRepository, checkpointRepository, encryption, blindIndexService,
+                dataKeyService, transactionManager, new SimpleMeterRegistry(), properties);
+    }
+
+    private void runBatch(KeyRotationService rotation) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> rotation.rotateBatch(TARGET_VERSION));
+    }
+
+    // Filas con ids 1..count en el formato Base64 sin prefijo (clave estática)
+    private void seedLegacy(int count) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("insert into password_entries (id, name, username, password, user_id) values (?, ?, ?, ?, ?)",
+                    i + 1, "entry-" + i, "user-" + i, encryptionUtil.encrypt("secret-" + i), testUser.getId());
+        }
+    }
+
+    private int migratedRows() {
+        return jdbcTemplate.queryForObject("select count(*) from password_entries where password_cipher is not null", Integer.class);
+    }
+}
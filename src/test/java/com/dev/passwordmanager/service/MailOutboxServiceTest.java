@@ -0,0 +1,169 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.MailOutbox;
+import com.dev.passwordmanager.repository.MailOutboxRepository;
+import com.dev.passwordmanager.service.MailTemplateService.RenderedMail;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MailOutboxServiceTest {
+
+    // Servidor SMTP local en el puerto 3025
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from mail_outbox");
+    }
+
+    @Test
+    void dispatch_SendsQueuedMailsAndRemovesThem() throws Exception {
+        // Given
+        MailOutboxService outbox = newOutbox(ServerSetupTest.SMTP.getPort(), 2);
+        outbox.enqueue("a@test.com", new RenderedMail("Asunto A", "Cuerpo A", null));
+        outbox.enqueue("b@test.com", new RenderedMail("Asunto B", "Cuerpo B", null));
+        outbox.enqueue("c@test.com", new RenderedMail("Asunto C", "Cuerpo C", null));
+
+        // When: dos lotes (2 + 1)
+        outbox.dispatch();
+
+        // Then
+        assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("Asunto A", received[0].getSubject());
+        assertEquals("Cuerpo A", GreenMailUtil.getBody(received[0]).trim());
+        assertEquals(0, mailOutboxRepository.count());
+    }
+
+    @Test
+    void dispatch_HtmlMail_IsSentAsMultipartAlternative() throws Exception {
+        // Given
+        MailOutboxService outbox = newOutbox(ServerSetupTest.SMTP.getPort(), 10);
+        outbox.enqueue("html@test.com", new RenderedMail("Código", "Tu código: 123456", "<p>Tu código: <b>123456</b></p>"));
+
+        // When
+        outbox.dispatch();
+
+        // Then
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertEquals("Código", received.getSubject());
+        String raw = GreenMailUtil.getWholeMessage(received);
+        assertTrue(raw.contains("multipart/alternative"), raw);
+        assertTrue(raw.contains("text/html"), raw);
+    }
+
+    @Test
+    void enqueue_RolledBackTransaction_NothingIsSent() {
+        // Given
+        MailOutboxService outbox = newOutbox(ServerSetupTest.SMTP.getPort(), 10);
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outbox.enqueue("rollback@test.com", new RenderedMail("Asunto", "Cuerpo", null));
+            status.setRollbackOnly();
+        });
+        outbox.dispatch();
+
+        // Then
+        assertEquals(0, mailOutboxRepository.count());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void dispatch_SmtpUnavailable_RetriesWithBackoff() {
+        // Given: puerto sin servidor
+        MailOutboxService outbox = newOutbox(1, 10);
+        outbox.enqueue("down@test.com", new RenderedMail("Asunto", "Cuerpo", null));
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        outbox.dispatch();
+
+        // Then
+        List<MailOutbox> pending = mailOutboxRepository.findAll();
+        assertEquals(1, pending.size());
+        MailOutbox mail = pending.get(0);
+        assertEquals(1, mail.getAttempts());
+        assertNull(mail.getFailedAt());
+        assertNotNull(mail.getLastError());
+        assertTrue(mail.getNextAttemptAt().isAfter(before.plusSeconds(25)));
+
+        // Y no se reintenta antes de tiempo
+        outbox.dispatch();
+        assertEquals(1, mailOutboxRepository.findAll().get(0).getAttempts());
+    }
+
+    @Test
+    void dispatch_LastAttemptFails_MarksMailAsFailed() {
+        // Given
+        MailOutboxService outbox = newOutbox(1, 10);
+        outbox.enqueue("down@test.com", new RenderedMail("Asunto", "Cuerpo", null));
+        jdbcTemplate.update("update mail_outbox set attempts = 7");
+
+        // When
+        outbox.dispatch();
+
+        // Then
+        MailOutbox mail = mailOutboxRepository.findAll().get(0);
+        assertEquals(8, mail.getAttempts());
+        assertNotNull(mail.getFailedAt());
+        assertEquals(0, mailOutboxRepository.countByFailedAtIsNull());
+    }
+
+    @Test
+    void backoff_DoublesUpToMaximum() {
+        // Given
+        MailOutboxService outbox = newOutbox(1, 10);
+
+        // Then
+        assertEquals(Duration.ofSeconds(30), outbox.backoff(1));
+        assertEquals(Duration.ofSeconds(60), outbox.backoff(2));
+        assertEquals(Duration.ofMinutes(32), outbox.backoff(7));
+        assertEquals(Duration.ofHours(1), outbox.backoff(20));
+    }
+
+    private MailOutboxService newOutbox(int smtpPort, int batchSize) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpPort);
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        return new MailOutboxService(mailOutboxRepository, mailSender, transactionManager, new SimpleMeterRegistry(),
+                "no-reply@test.com", batchSize, 8, Duration.ofSeconds(30), Duration.ofHours(1));
+    }
+}
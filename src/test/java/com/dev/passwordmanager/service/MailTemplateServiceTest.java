@@ -0,0 +1,133 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.config.MailConfig;
+import com.dev.passwordmanager.service.MailTemplateService.RenderedMail;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MailTemplateServiceTest {
+
+    private static final Map<String, Object> MODEL = Map.of("name", "Ana <Admin>", "code", "123456", "minutes", 10);
+
+    private static MailTemplateService mailTemplateService;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        mailTemplateService = new MailTemplateService();
+    }
+
+    @Test
+    void render_DefaultTemplate_UsesSpanishWithSubjectAndHtml() {
+        // When
+        RenderedMail mail = mailTemplateService.render("verification", Locale.forLanguageTag("es-ES"), MODEL);
+
+        // Then
+        assertEquals("Verifica tu cuenta", mail.subject());
+        assertTrue(mail.text().startsWith("Hola Ana <Admin>,"), mail.text());
+        assertTrue(mail.text().contains("123456"));
+        assertTrue(mail.text().contains("10 minutos"));
+        assertNotNull(mail.html());
+        assertTrue(mail.html().contains("Ana &lt;Admin&gt;"), mail.html());
+    }
+
+    @Test
+    void render_LocaleWithRegion_FallsBackToLanguageVariant() {
+        // When
+        RenderedMail mail = mailTemplateService.render("verification", Locale.forLanguageTag("en-GB"), MODEL);
+
+        // Then
+        assertEquals("Verify your account", mail.subject());
+        assertTrue(mail.text().contains("expires in 10 minutes"));
+    }
+
+    @Test
+    void render_UnknownLanguage_FallsBackToDefault() {
+        // When
+        RenderedMail mail = mailTemplateService.render("verification", Locale.JAPANESE, MODEL);
+
+        // Then
+        assertEquals("Verifica tu cuenta", mail.subject());
+    }
+
+    @Test
+    void render_NoAcceptLanguage_UsesSpanish() {
+        // Given: petición sin Accept-Language
+        Locale locale = new MailConfig().localeResolver().resolveLocale(new MockHttpServletRequest());
+
+        // When
+        RenderedMail mail = mailTemplateService.render("verification", locale, MODEL);
+
+        // Then: la versión sin sufijo, no el idioma por defecto de la JVM
+        assertEquals(Locale.ROOT, locale);
+        assertEquals("Verifica tu cuenta", mail.subject());
+    }
+
+    @Test
+    void localeSuffixStart_OnlyValidLocalesAreSuffixes() {
+        assertEquals(-1, MailTemplateService.localeSuffixStart("verification"));
+        assertEquals(12, MailTemplateService.localeSuffixStart("verification_en"));
+        assertEquals(10, MailTemplateService.localeSuffixStart("new_device_en_US"));
+        assertEquals(-1, MailTemplateService.localeSuffixStart("new_device"));
+        assertEquals(-1, MailTemplateService.localeSuffixStart("password_reset_link"));
+    }
+
+    @Test
+    void render_NameWithUnderscore_KeepsWholeName() throws Exception {
+        // Given
+        MailTemplateService service = new MailTemplateService(resolver(
+                resource("new_device.txt", "Subject: Nuevo dispositivo\nHola"),
+                resource("new_device_en_US.txt", "Subject: New device\nHello")));
+
+        // When/Then
+        assertEquals("Nuevo dispositivo", service.render("new_device", Locale.ROOT, MODEL).subject());
+        assertEquals("New device", service.render("new_device", Locale.US, MODEL).subject());
+        assertEquals("Nuevo dispositivo", service.render("new_device", Locale.UK, MODEL).subject());
+    }
+
+    @Test
+    void render_UnknownTemplate_Fails() {
+        assertThrows(IllegalArgumentException.class,
+                () -> mailTemplateService.render("missing", Locale.ROOT, MODEL));
+    }
+
+    private static Resource resource(String filename, String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    private static ResourcePatternResolver resolver(Resource... resources) {
+        return new ResourcePatternResolver() {
+            private final DefaultResourceLoader loader = new DefaultResourceLoader();
+
+            @Override
+            public Resource[] getResources(String locationPattern) {
+                return resources;
+            }
+
+            @Override
+            public Resource getResource(String location) {
+                return loader.getResource(location);
+            }
+
+            @Override
+            public ClassLoader getClassLoader() {
+                return loader.getClassLoader();
+            }
+        };
+    }
+}
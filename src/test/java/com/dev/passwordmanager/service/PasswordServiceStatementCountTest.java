@@ -0,0 +1,113 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.dto.password.PasswordEntryDTO;
+import com.dev.passwordmanager.exception.ResourceNotFoundException;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PasswordService.class, VaultTestConfig.class})
+public class PasswordServiceStatementCountTest {
+
+    private static final int ENTRIES = 1000;
+    private static final int CATEGORIES = 50;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("list@test.com");
+        user.setPassword("hash");
+        user.setName("List User");
+        user = userRepository.save(user);
+        userId = user.getId();
+
+        for (int i = 1; i <= CATEGORIES; i++) {
+            jdbcTemplate.update("insert into categories (id, name, user_id) values (?, ?, ?)", i, "category-" + i, user.getId());
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= ENTRIES; i++) {
+            rows.add(new Object[]{i, String.format("entry-%04d", i), "user-" + i, user.getId(), i % CATEGORIES + 1});
+        }
+        jdbcTemplate.batchUpdate("insert into password_entries (id, name, username, user_id, category_id) values (?, ?, ?, ?, ?)", rows);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from password_entries");
+        jdbcTemplate.update("delete from categories");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void getUserPasswords_ThousandEntries_StatementCountDoesNotDependOnRows() {
+        // When: se recorren las 1.000 entradas en dos páginas
+        PasswordEntryDTO.Page first = passwordService.getUserPasswords(userId, null, null, 500, null);
+        PasswordEntryDTO.Page second = passwordService.getUserPasswords(userId, null, null, 500, first.getNextCursor());
+
+        // Then: una sola consulta por página, con la categoría ya unida y sin buscar al usuario
+        assertEquals(500, first.getItems().size());
+        assertEquals(500, second.getItems().size());
+        assertNull(second.getNextCursor());
+        assertEquals("category-2", first.getItems().get(0).getCategoryName());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getPassword_SingleStatement() {
+        // When
+        PasswordEntryDTO.Response response = passwordService.getPassword(10L, userId);
+
+        // Then
+        assertEquals("category-11", response.getCategoryName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deletePassword_OwnershipCheckedInTheLookup() {
+        // When
+        passwordService.deletePassword(10L, userId);
+
+        // Then: una consulta (entrada + categoría, filtrada por dueño) y el borrado
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertThrows(ResourceNotFoundException.class, () -> passwordService.deletePassword(11L, userId + 1));
+    }
+}
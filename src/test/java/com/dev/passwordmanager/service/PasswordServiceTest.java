@@ -8,15 +8,17 @@ import com.dev.passwordmanager.model.User;
 import com.dev.passwordmanager.repository.CategoryRepository;
 import com.dev.passwordmanager.repository.PasswordEntryRepository;
 import com.dev.passwordmanager.repository.UserRepository;
-import com.dev.passwordmanager.utils.EncryptionUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -38,7 +40,10 @@ public class PasswordServiceTest {
     private CategoryRepository categoryRepository;
 
     @Mock
-    private EncryptionUtil encryptionUtil;
+    private VaultEncryptionService vaultEncryptionService;
+
+    @Mock
+    private BlindIndexService blindIndexService;
 
 
     @InjectMocks
@@ -47,6 +52,7 @@ public class PasswordServiceTest {
     private User testUser;
     private Category testCategory;
     private PasswordEntry testPasswordEntry;
+    private PasswordEntryDTO.Response testResponse;
     private PasswordEntryDTO testPasswordDTO;
 
     @BeforeEach
@@ -72,6 +78,10 @@ public class PasswordServiceTest {
         testPasswordEntry.setUser(testUser);
         testPasswordEntry.setCategory(testCategory);
 
+        // Proyección equivalente que devuelven las consultas de lectura
+        testResponse = new PasswordEntryDTO.Response(1L, "Test Password", "testuser", null, null,
+                testCategory.getId(), testCategory.getName());
+
         // Configurar DTO de prueba
         testPasswordDTO = new PasswordEntryDTO();
         testPasswordDTO.setName("Test Password");
@@ -83,95 +93,158 @@ public class PasswordServiceTest {
     @Test
     void createPassword_Success() {
         // Given
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
-        when(categoryRepository.findById(anyLong())).thenReturn(Optional.of(testCategory));
-        when(encryptionUtil.encrypt(anyString())).thenReturn("encryptedPassword");
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(categoryRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(testCategory));
+        when(vaultEncryptionService.encrypt(anyLong(), anyString())).thenReturn(new byte[]{1, 0, 1});
         when(passwordEntryRepository.save(any(PasswordEntry.class))).thenReturn(testPasswordEntry);
 
         // When
-        PasswordEntryDTO.Response response = passwordService.createPassword(testPasswordDTO, "test@test.com");
+        PasswordEntryDTO.Response response = passwordService.createPassword(testPasswordDTO, 1L);
 
         // Then
         assertNotNull(response);
         assertEquals(testPasswordDTO.getName(), response.getName());
         assertEquals(testPasswordDTO.getUsername(), response.getUsername());
         assertEquals(testCategory.getId(), response.getCategoryId());
+        verify(blindIndexService).index(any(PasswordEntry.class), eq(1L));
     }
 
-
-
     @Test
-    void createPassword_UserNotFound() {
+    void createPassword_CategoryOfAnotherUser_NotFound() {
         // Given
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(vaultEncryptionService.encrypt(anyLong(), anyString())).thenReturn(new byte[]{1, 0, 1});
+        when(categoryRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.empty());
 
         // When/Then
         assertThrows(ResourceNotFoundException.class, () ->
-                passwordService.createPassword(testPasswordDTO, "nonexistent@test.com")
+                passwordService.createPassword(testPasswordDTO, 1L)
         );
         verify(passwordEntryRepository, never()).save(any());
+        verify(userRepository, never()).findByEmail(anyString());
     }
 
     @Test
     void getUserPasswords_Success() {
         // Given
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
-        when(passwordEntryRepository.findByUserId(anyLong()))
-                .thenReturn(Arrays.asList(testPasswordEntry));
+        when(passwordEntryRepository.findPage(eq(1L), eq(""), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testResponse));
 
         // When
-        List<PasswordEntryDTO.Response> responses = passwordService.getUserPasswords(
-                "test@test.com", null, null);
+        PasswordEntryDTO.Page page = passwordService.getUserPasswords(
+                1L, null, null, null, null);
 
         // Then
-        assertFalse(responses.isEmpty());
-        assertEquals(1, responses.size());
-        assertEquals(testPasswordEntry.getName(), responses.get(0).getName());
+        assertEquals(1, page.getItems().size());
+        assertEquals(testPasswordEntry.getName(), page.getItems().get(0).getName());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getUserPasswords_WithoutLimit_ReturnsWholeList() {
+        // Given: más filas que cualquier tamaño de página
+        List<PasswordEntryDTO.Response> all = new ArrayList<>();
+        for (long i = 0; i < PasswordService.MAX_PAGE_SIZE + 10; i++) {
+            all.add(new PasswordEntryDTO.Response(i, "entry-" + i, "user", null, null, null, null));
+        }
+        when(passwordEntryRepository.findPage(eq(1L), eq(""), eq(0L), eq(Pageable.unpaged())))
+                .thenReturn(all);
+
+        // When
+        PasswordEntryDTO.Page page = passwordService.getUserPasswords(1L, null, null, null, null);
+
+        // Then: sin truncar y sin cursor
+        assertEquals(PasswordService.MAX_PAGE_SIZE + 10, page.getItems().size());
+        assertNull(page.getNextCursor());
     }
 
     @Test
     void getUserPasswords_WithCategoryFilter() {
         // Given
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
-        when(passwordEntryRepository.findByUserIdAndCategoryId(anyLong(), anyLong()))
-                .thenReturn(Arrays.asList(testPasswordEntry));
+        when(passwordEntryRepository.findPageByCategory(eq(1L), eq(1L), eq(""), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testResponse));
 
         // When
-        List<PasswordEntryDTO.Response> responses = passwordService.getUserPasswords(
-                "test@test.com", testCategory.getId(), null);
+        PasswordEntryDTO.Page page = passwordService.getUserPasswords(
+                1L, testCategory.getId(), null, null, null);
 
         // Then
-        assertFalse(responses.isEmpty());
-        assertEquals(1, responses.size());
-        assertEquals(testCategory.getId(), responses.get(0).getCategoryId());
-        assertEquals(testPasswordEntry.getName(), responses.get(0).getName());
+        assertEquals(1, page.getItems().size());
+        assertEquals(testCategory.getId(), page.getItems().get(0).getCategoryId());
+        assertEquals(testPasswordEntry.getName(), page.getItems().get(0).getName());
     }
 
 
     @Test
     void getUserPasswords_WithSearch() {
         // Given
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
-        when(passwordEntryRepository.findByUserIdAndNameContainingIgnoreCase(anyLong(), anyString()))
-                .thenReturn(Arrays.asList(testPasswordEntry));
+        when(blindIndexService.usernameToken(1L, "Test")).thenReturn("username-token");
+        when(blindIndexService.websiteToken(1L, "Test")).thenReturn("website-token");
+        when(blindIndexService.domainToken(1L, "Test")).thenReturn("domain-token");
+        when(passwordEntryRepository.searchPage(eq(1L), eq("Test"), eq("username-token"), eq("website-token"),
+                eq("domain-token"), eq(""), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testResponse));
+
+        // When
+        PasswordEntryDTO.Page page = passwordService.getUserPasswords(
+                1L, null, "Test", null, null);
+
+        // Then
+        assertEquals(1, page.getItems().size());
+        assertTrue(page.getItems().get(0).getName().contains("Test"));
+    }
+
+    @Test
+    void getUserPasswords_FullPage_ReturnsCursorForNextPage() {
+        // Given: se pide una fila de más para saber si hay otra página
+        PasswordEntryDTO.Response second = new PasswordEntryDTO.Response(2L, "Zeta", "zeta", null, null, null, null);
+        when(passwordEntryRepository.findPage(eq(1L), eq(""), eq(0L), eq(PageRequest.of(0, 2))))
+                .thenReturn(Arrays.asList(testResponse, second));
+        when(passwordEntryRepository.findPage(eq(1L), eq("Test Password"), eq(1L), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(second));
 
         // When
-        List<PasswordEntryDTO.Response> responses = passwordService.getUserPasswords(
-                "test@test.com", null, "Test");
+        PasswordEntryDTO.Page first = passwordService.getUserPasswords(1L, null, null, 1, null);
+        PasswordEntryDTO.Page next = passwordService.getUserPasswords(1L, null, null, 1, first.getNextCursor());
 
         // Then
-        assertFalse(responses.isEmpty());
-        assertEquals(1, responses.size());
-        assertTrue(responses.get(0).getName().contains("Test"));
+        assertEquals(List.of("Test Password"), first.getItems().stream().map(PasswordEntryDTO.Response::getName).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of("Zeta"), next.getItems().stream().map(PasswordEntryDTO.Response::getName).toList());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getUserPasswords_InvalidLimitOrCursor_Rejected() {
+        // Given
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () ->
+                passwordService.getUserPasswords(1L, null, null, 0, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                passwordService.getUserPasswords(1L, null, null, null, "no-es-un-cursor"));
+    }
+
+    @Test
+    void getPassword_UsesOwnerScopedProjection() {
+        // Given
+        when(passwordEntryRepository.findResponseByIdAndUserId(1L, 1L))
+                .thenReturn(Optional.of(testResponse));
+        when(passwordEntryRepository.findResponseByIdAndUserId(1L, 2L))
+                .thenReturn(Optional.empty());
+
+        // When/Then
+        assertEquals("Test Category", passwordService.getPassword(1L, 1L).getCategoryName());
+        assertThrows(ResourceNotFoundException.class, () -> passwordService.getPassword(1L, 2L));
     }
 
     @Test
     void deletePassword_Success() {
         // Given
-        when(passwordEntryRepository.findById(anyLong())).thenReturn(Optional.of(testPasswordEntry));
+        when(passwordEntryRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(testPasswordEntry));
 
         // When
-        passwordService.deletePassword(1L, "test@test.com");
+        passwordService.deletePassword(1L, 1L);
 
         // Then
         verify(passwordEntryRepository).delete(testPasswordEntry);
@@ -180,11 +253,11 @@ public class PasswordServiceTest {
     @Test
     void deletePassword_NotFound() {
         // Given
-        when(passwordEntryRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(passwordEntryRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.empty());
 
         // When/Then
         assertThrows(ResourceNotFoundException.class, () ->
-                passwordService.deletePassword(1L, "test@test.com")
+                passwordService.deletePassword(1L, 1L)
         );
         verify(passwordEntryRepository, never()).delete(any());
     }
@@ -0,0 +1,131 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.RefreshToken;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.RefreshTokenRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Sin transacción de test: los borrados de familia deben confirmarse aunque el canje falle
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RefreshTokenService.class)
+@TestPropertySource(properties = "jwt.refresh-token.purge-batch-size=10")
+public class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setEmail("refresh@test.com");
+        testUser.setPassword("hash");
+        testUser.setName("Refresh User");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from refresh_tokens");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void rotate_ReturnsNextTokenOfTheSameFamily() {
+        // Given
+        String first = refreshTokenService.issue(testUser);
+
+        // When
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        // Then
+        assertEquals(testUser.getId(), rotation.user().getId());
+        assertNotEquals(first, rotation.refreshToken());
+        assertEquals(2, refreshTokenRepository.count());
+        assertEquals(1, refreshTokenRepository.findAll().stream().map(RefreshToken::getFamilyId).distinct().count());
+        assertDoesNotThrow(() -> refreshTokenService.rotate(rotation.refreshToken()));
+    }
+
+    @Test
+    void rotate_ReusedToken_RevokesWholeFamily() {
+        // Given: el token original se canjea y alguien vuelve a presentarlo
+        String first = refreshTokenService.issue(testUser);
+        String second = refreshTokenService.rotate(first).refreshToken();
+        String otherSession = refreshTokenService.issue(testUser);
+
+        // When
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(first));
+
+        // Then: el sucesor también queda revocado, pero no las demás sesiones
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(second));
+        assertEquals(1, refreshTokenRepository.count());
+        assertDoesNotThrow(() -> refreshTokenService.rotate(otherSession));
+    }
+
+    @Test
+    void rotate_AfterTokenVersionBump_IsRejected() {
+        // Given
+        String token = refreshTokenService.issue(testUser);
+        testUser.setTokenVersion(testUser.getTokenVersion() + 1);
+        userRepository.save(testUser);
+
+        // When/Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(token));
+        assertEquals(0, refreshTokenRepository.count());
+    }
+
+    @Test
+    void rotate_UnknownToken_IsRejected() {
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("no-existe"));
+    }
+
+    @Test
+    void purgeExpired_DeletesExpiredRowsInBatches() {
+        // Given: más filas caducadas que el tamaño de lote
+        for (int i = 0; i < 25; i++) {
+            RefreshToken expired = new RefreshToken();
+            expired.setTokenHash(UUID.randomUUID().toString().substring(0, 32).getBytes());
+            expired.setFamilyId(UUID.randomUUID());
+            expired.setUser(testUser);
+            expired.setExpiresAt(LocalDateTime.now().minusDays(1));
+            refreshTokenRepository.save(expired);
+        }
+        String live = refreshTokenService.issue(testUser);
+
+        // When
+        refreshTokenService.purgeExpired();
+
+        // Then
+        assertEquals(1, refreshTokenRepository.count());
+        assertDoesNotThrow(() -> refreshTokenService.rotate(live));
+    }
+}
@@ -0,0 +1,130 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.PasswordEntry;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.utils.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class VaultEncryptionServiceTest {
+
+    @Mock
+    private DataKeyService dataKeyService;
+
+    private final EncryptionUtil encryptionUtil = new EncryptionUtil();
+    private VaultEncryptionService vaultEncryptionService;
+    private SecretKey dataKey;
+
+    @BeforeEach
+    void setUp() {
+        vaultEncryptionService = new VaultEncryptionService(encryptionUtil, dataKeyService);
+        dataKey = encryptionUtil.generateKey();
+    }
+
+    @Test
+    void encryptDecrypt_UsesUserDataKey() {
+        // Given
+        when(dataKeyService.getActiveKeyVersion()).thenReturn(1);
+        when(dataKeyService.getOrCreateDataKey(1L, 1)).thenReturn(dataKey);
+        when(dataKeyService.getDataKey(1L, 1)).thenReturn(dataKey);
+
+        // When
+        byte[] sealed = vaultEncryptionService.encrypt(1L, "password123");
+
+        // Then
+        assertEquals(VaultEncryptionService.FORMAT_VERSION, sealed[0]);
+        assertEquals(1, vaultEncryptionService.keyVersionOf(sealed));
+        assertEquals(3 + EncryptionUtil.encryptedLength("password123".length()), sealed.length);
+        assertEquals("password123", vaultEncryptionService.decrypt(1L, sealed));
+    }
+
+    @Test
+    void decrypt_TamperedHeader_Fails() {
+        // Given: se cambia la versión de clave de la cabecera autenticada
+        when(dataKeyService.getActiveKeyVersion()).thenReturn(1);
+        when(dataKeyService.getOrCreateDataKey(1L, 1)).thenReturn(dataKey);
+        when(dataKeyService.getDataKey(1L, 2)).thenReturn(dataKey);
+        byte[] sealed = vaultEncryptionService.encrypt(1L, "password123");
+        sealed[2] = 2;
+
+        // When/Then
+        assertThrows(RuntimeException.class, () -> vaultEncryptionService.decrypt(1L, sealed));
+    }
+
+    @Test
+    void decryptLegacy_UnprefixedValue_UsesStaticKey() {
+        // Given
+        String legacy = encryptionUtil.encrypt("password123");
+
+        // When
+        String decrypted = vaultEncryptionService.decryptLegacy(1L, legacy);
+
+        // Then
+        assertEquals("password123", decrypted);
+        verifyNoInteractions(dataKeyService);
+    }
+
+    @Test
+    void decryptLegacy_VersionPrefixedValue_UsesUserDataKey() {
+        // Given
+        when(dataKeyService.getDataKey(1L, 1)).thenReturn(dataKey);
+        byte[] encrypted = encryptionUtil.encrypt("password123".getBytes(StandardCharsets.UTF_8), dataKey, null);
+        String legacy = "v1:" + Base64.getEncoder().encodeToString(encrypted);
+
+        // When/Then
+        assertEquals("password123", vaultEncryptionService.decryptLegacy(1L, legacy));
+    }
+
+    @Test
+    void decryptPassword_PrefersBinaryColumn() {
+        // Given
+        when(dataKeyService.getActiveKeyVersion()).thenReturn(1);
+        when(dataKeyService.getOrCreateDataKey(1L, 1)).thenReturn(dataKey);
+        when(dataKeyService.getDataKey(1L, 1)).thenReturn(dataKey);
+        User user = new User();
+        user.setId(1L);
+        PasswordEntry entry = new PasswordEntry();
+        entry.setUser(user);
+        entry.setPasswordCipher(vaultEncryptionService.encrypt(1L, "password123"));
+
+        // When/Then
+        assertEquals("password123", vaultEncryptionService.decryptPassword(entry));
+    }
+
+    @Test
+    void decrypt_PreviousKeyVersion_StillWorksDuringRotation() {
+        // Given: valor cifrado con v1 y clave activa ya en v2
+        SecretKey previousKey = encryptionUtil.generateKey();
+        when(dataKeyService.getActiveKeyVersion()).thenReturn(1, 2);
+        when(dataKeyService.getOrCreateDataKey(1L, 1)).thenReturn(previousKey);
+        when(dataKeyService.getDataKey(1L, 1)).thenReturn(previousKey);
+        byte[] sealed = vaultEncryptionService.encrypt(1L, "password123");
+
+        // When/Then
+        assertTrue(vaultEncryptionService.needsRotation(sealed));
+        assertEquals("password123", vaultEncryptionService.decrypt(1L, sealed));
+    }
+
+    @Test
+    void decrypt_WithAnotherUsersKey_Fails() {
+        // Given
+        when(dataKeyService.getActiveKeyVersion()).thenReturn(1);
+        when(dataKeyService.getOrCreateDataKey(1L, 1)).thenReturn(dataKey);
+        when(dataKeyService.getDataKey(2L, 1)).thenReturn(encryptionUtil.generateKey());
+        byte[] sealed = vaultEncryptionService.encrypt(1L, "password123");
+
+        // When/Then
+        assertThrows(RuntimeException.class, () -> vaultEncryptionService.decrypt(2L, sealed));
+    }
+}
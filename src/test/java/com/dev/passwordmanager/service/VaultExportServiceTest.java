@@ -0,0 +1,186 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.model.Category;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.CategoryRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Sin transacción de test: la exportación abre la suya, como en producción
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({VaultExportService.class, VaultTestConfig.class})
+public class VaultExportServiceTest {
+
+    private static final int LARGE_VAULT_SIZE = 20_000;
+
+    @Autowired
+    private VaultExportService vaultExportService;
+
+    @Autowired
+    private VaultEncryptionService vaultEncryptionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User testUser;
+    private Category testCategory;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setEmail("export@test.com");
+        testUser.setPassword("hash");
+        testUser.setName("Export User");
+        testUser = userRepository.save(testUser);
+
+        testCategory = new Category();
+        testCategory.setName("Trabajo");
+        testCategory.setUser(testUser);
+        testCategory = categoryRepository.save(testCategory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from password_entries");
+        jdbcTemplate.update("delete from categories");
+        jdbcTemplate.update("delete from user_data_keys");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void export_LargeVault_KeepsPersistenceContextBounded() throws Exception {
+        // Given
+        seed(LARGE_VAULT_SIZE, "site");
+        SamplingOutputStream output = new SamplingOutputStream();
+
+        // When
+        vaultExportService.export(testUser.getId(), VaultExportService.Format.CSV, output);
+
+        // Then: todas las filas salen, pero nunca hay más que un puñado de entidades gestionadas a la vez
+        assertEquals(LARGE_VAULT_SIZE + 1, output.lines);
+        assertTrue(output.samples > 10, "La salida debería escribirse en varios bloques");
+        assertTrue(output.maxManagedEntities < 10,
+                "Entidades gestionadas durante la exportación: " + output.maxManagedEntities);
+        assertTrue(output.head().startsWith("name,username,password,website,notes,category\r\nentry-0,user-0,secret-0,"));
+    }
+
+    @Test
+    void export_Json_DecryptsAndEscapesValues() throws Exception {
+        // Given
+        seed(2, "https://example.com/login?a=1,b=\"2\"");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        vaultExportService.export(testUser.getId(), VaultExportService.Format.JSON, output);
+
+        // Then
+        JsonNode exported = new ObjectMapper().readTree(output.toByteArray());
+        assertEquals(2, exported.size());
+        assertEquals("secret-1", exported.get(1).get("password").asText());
+        assertEquals("https://example.com/login?a=1,b=\"2\"", exported.get(1).get("website").asText());
+        assertEquals("Trabajo", exported.get(1).get("category").asText());
+    }
+
+    @Test
+    void export_Csv_QuotesFieldsWithSeparators() throws Exception {
+        // Given
+        seed(1, "https://example.com/login?a=1,b=\"2\"");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        vaultExportService.export(testUser.getId(), VaultExportService.Format.CSV, output);
+
+        // Then
+        assertTrue(output.toString(StandardCharsets.UTF_8)
+                .endsWith("entry-0,user-0,secret-0,\"https://example.com/login?a=1,b=\"\"2\"\"\",,Trabajo\r\n"));
+    }
+
+    // Inserta por JDBC para no llenar el contexto de persistencia del propio test
+    private void seed(int count, String website) {
+        Long userId = testUser.getId();
+        jdbcTemplate.batchUpdate("insert into password_entries (id, name, username, password_cipher, website, user_id, category_id) " +
+                "values (?, ?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, i + 1);
+                ps.setString(2, "entry-" + i);
+                ps.setString(3, "user-" + i);
+                ps.setBytes(4, vaultEncryptionService.encrypt(userId, "secret-" + i));
+                ps.setString(5, website);
+                ps.setLong(6, userId);
+                ps.setLong(7, testCategory.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    // Descarta la salida salvo el principio y, en cada escritura, anota cuántas entidades gestiona la sesión
+    private class SamplingOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        private long lines;
+        private int samples;
+        private int maxManagedEntities;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] == '\n') {
+                    lines++;
+                }
+            }
+            if (head.size() < 256) {
+                head.write(bytes, offset, Math.min(length, 256));
+            }
+            samples++;
+            int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+            maxManagedEntities = Math.max(maxManagedEntities, managed);
+        }
+
+        String head() {
+            return head.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.dto.password.ImportReportDTO;
+import com.dev.passwordmanager.model.PasswordEntry;
+import com.dev.passwordmanager.model.User;
+import com.dev.passwordmanager.repository.CategoryRepository;
+import com.dev.passwordmanager.repository.PasswordEntryRepository;
+import com.dev.passwordmanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Sin transacción de test: la importación confirma cada bloque por separado
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({VaultImportService.class, VaultTestConfig.class})
+public class VaultImportServiceTest {
+
+    @Autowired
+    private VaultImportService vaultImportService;
+
+    @Autowired
+    private VaultEncryptionService vaultEncryptionService;
+
+    @Autowired
+    private BlindIndexService blindIndexService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PasswordEntryRepository passwordEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setEmail("import@test.com");
+        testUser.setPassword("hash");
+        testUser.setName("Import User");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from password_entries");
+        jdbcTemplate.update("delete from categories");
+        jdbcTemplate.update("delete from user_data_keys");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void importCsv_ChromeFormat_ImportsAllRowsInBatches() throws Exception {
+        // Given: más filas que un bloque, para pasar por varias transacciones
+        StringBuilder csv = new StringBuilder("name,url,username,password,note\n");
+        for (int i = 0; i < 1200; i++) {
+            csv.append("site-").append(i).append(",https://site").append(i).append(".com/login,user-")
+                    .append(i).append(",secret-").append(i).append(",\n");
+        }
+
+        // When
+        ImportReportDTO report = vaultImportService.importCsv(testUser.getId(), stream(csv.toString()));
+
+        // Then
+        assertEquals(1200, report.getTotalRows());
+        assertEquals(1200, report.getImported());
+        assertEquals(0, report.getFailed());
+        assertTrue(report.getErrors().isEmpty());
+
+        List<PasswordEntry> entries = passwordEntryRepository.findByUserId(testUser.getId());
+        assertEquals(1200, entries.size());
+        PasswordEntry entry = entries.stream().filter(e -> e.getName().equals("site-7")).findFirst().orElseThrow();
+        assertEquals("secret-7", vaultEncryptionService.decryptPassword(entry));
+        assertEquals(blindIndexService.domainToken(testUser.getId(), "site7.com"), entry.getWebsiteDomainIndex());
+    }
+
+    @Test
+    void importCsv_BitwardenFormat_CreatesFoldersOnceAndReportsInvalidRows() throws Exception {
+        // Given
+        String csv = "folder,favorite,type,name,notes,fields,reprompt,login_uri,login_username,login_password,login_totp\n" +
+                "Trabajo,,login,GitLab,\"línea 1\nlínea 2\",,0,https://gitlab.com,ana,\"p,ss\"\"word\",\n" +
+                "trabajo,,login,Jira,,,0,https://jira.example.com,ana,secret,\n" +
+                ",,note,Nota segura,texto,,0,,,,\n" +
+                "Personal,,login,Sin usuario,,,0,https://example.com,,secret,\n";
+
+        // When
+        ImportReportDTO report = vaultImportService.importCsv(testUser.getId(), stream(csv));
+
+        // Then
+        assertEquals(4, report.getTotalRows());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(1, report.getCategoriesCreated());
+        assertEquals(5, report.getErrors().get(0).getLine());
+        assertEquals(6, report.getErrors().get(1).getLine());
+        assertEquals(1, categoryRepository.findByUserId(testUser.getId()).size());
+
+        PasswordEntry gitlab = passwordEntryRepository.findByUserId(testUser.getId()).stream()
+                .filter(e -> e.getName().equals("GitLab")).findFirst().orElseThrow();
+        assertEquals("p,ss\"word", vaultEncryptionService.decryptPassword(gitlab));
+        assertEquals("línea 1\nlínea 2", gitlab.getNotes());
+    }
+
+    @Test
+    void importCsv_WithoutPasswordColumn_IsRejected() {
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () ->
+                vaultImportService.importCsv(testUser.getId(), stream("name,url,username\nGitLab,gitlab.com,ana\n")));
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
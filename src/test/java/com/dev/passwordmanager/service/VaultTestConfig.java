@@ -0,0 +1,35 @@
+package com.dev.passwordmanager.service;
+
+import com.dev.passwordmanager.config.EncryptionProperties;
+import com.dev.passwordmanager.utils.EncryptionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Beans de cifrado para los tests de persistencia (@DataJpaTest), que no cargan servicios.
+ */
+@TestConfiguration
+@Import({VaultEncryptionService.class, DataKeyService.class, BlindIndexService.class, EncryptionUtil.class})
+public class VaultTestConfig {
+
+    @Bean
+    EncryptionProperties encryptionProperties() {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setMasterKey("GDJW0Wc9weOYPMOb5hpKgwVJovPcvbXFiv81LNiH0rc=");
+        return properties;
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    ObjectMapper objectMapper() {
+        return new ObjectMapper();
+    }
+}
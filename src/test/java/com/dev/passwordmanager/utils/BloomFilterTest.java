@@ -0,0 +1,63 @@
+package com.dev.passwordmanager.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void mightContain_NoFalseNegatives() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String value = UUID.randomUUID().toString();
+            values.add(value);
+            filter.put(value);
+        }
+
+        // When/Then
+        values.forEach(value -> assertTrue(filter.mightContain(value)));
+    }
+
+    @Test
+    void mightContain_FalsePositiveRateCloseToConfigured() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        // Then: margen amplio para que el test no dependa del azar
+        assertTrue(falsePositives < 2_000, "Falsos positivos: " + falsePositives);
+    }
+
+    @Test
+    void constructor_SizesBitsAndHashesFromExpectedLoad() {
+        // When
+        BloomFilter filter = new BloomFilter(100_000, 0.001);
+
+        // Then: ~14,4 bits y ~10 funciones hash por elemento
+        assertTrue(filter.bitSize() >= 1_437_000 && filter.bitSize() < 1_440_000, "Bits: " + filter.bitSize());
+        assertEquals(10, filter.hashCount());
+    }
+
+    @Test
+    void constructor_InvalidArguments_AreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
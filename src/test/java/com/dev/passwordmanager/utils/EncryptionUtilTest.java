@@ -0,0 +1,104 @@
+package com.dev.passwordmanager.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncryptionUtilTest {
+
+    private static final String LEGACY_KEY = "01234567890123456789012345678901";
+
+    private final EncryptionUtil encryptionUtil = new EncryptionUtil();
+
+    @Test
+    void encryptDecrypt_RoundTrip() {
+        // Given
+        String plain = "contraseña-secreta-ñ€";
+
+        // When
+        String encrypted = encryptionUtil.encrypt(plain);
+
+        // Then
+        assertNotEquals(plain, encrypted);
+        assertEquals(plain, encryptionUtil.decrypt(encrypted));
+    }
+
+    @Test
+    void encrypt_UsesFreshIvPerCall() {
+        // When
+        String first = encryptionUtil.encrypt("password123");
+        String second = encryptionUtil.encrypt("password123");
+
+        // Then
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void decrypt_AcceptsCiphertextFromPreviousImplementation() throws Exception {
+        // Given: texto cifrado generado como lo hacía la implementación anterior
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(LEGACY_KEY.getBytes(), "AES"), new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal("password123".getBytes());
+        byte[] combined = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+
+        // When
+        String decrypted = encryptionUtil.decrypt(Base64.getEncoder().encodeToString(combined));
+
+        // Then
+        assertEquals("password123", decrypted);
+    }
+
+    @Test
+    void byteArrayOverloads_MatchStringWireFormat() {
+        // Given
+        byte[] plain = "password123".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        byte[] encrypted = encryptionUtil.encrypt(plain);
+
+        // Then
+        assertEquals(EncryptionUtil.encryptedLength(plain.length), encrypted.length);
+        assertEquals("password123", encryptionUtil.decrypt(Base64.getEncoder().encodeToString(encrypted)));
+        assertArrayEquals(plain, encryptionUtil.decrypt(encrypted));
+    }
+
+    @Test
+    void byteBufferOverloads_RoundTrip() {
+        // Given
+        byte[] plain = "password123".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer encrypted = ByteBuffer.allocate(EncryptionUtil.encryptedLength(plain.length));
+        ByteBuffer decrypted = ByteBuffer.allocate(plain.length);
+
+        // When
+        int written = encryptionUtil.encrypt(ByteBuffer.wrap(plain), encrypted);
+        encrypted.flip();
+        int read = encryptionUtil.decrypt(encrypted, decrypted);
+
+        // Then
+        assertEquals(EncryptionUtil.encryptedLength(plain.length), written);
+        assertEquals(plain.length, read);
+        assertArrayEquals(plain, decrypted.array());
+    }
+
+    @Test
+    void decrypt_TamperedCiphertext_Throws() {
+        // Given
+        byte[] encrypted = encryptionUtil.encrypt("password123".getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+
+        // When/Then
+        assertThrows(RuntimeException.class, () -> encryptionUtil.decrypt(encrypted));
+    }
+}
@@ -0,0 +1,125 @@
+package com.dev.passwordmanager.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void tryAcquire_AllowsBurstThenOneTokenPerInterval() {
+        // Given: 5 por minuto, uno cada 12 s
+        RateLimiter limiter = new RateLimiter(5, Duration.ofMinutes(1), clock::get);
+
+        // When/Then
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Duration.ZERO, limiter.tryAcquire("a"), "intento " + i);
+        }
+        assertEquals(Duration.ofSeconds(12), limiter.tryAcquire("a"));
+
+        advance(Duration.ofSeconds(12));
+        assertEquals(Duration.ZERO, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a").compareTo(Duration.ZERO) > 0);
+    }
+
+    @Test
+    void tryAcquire_KeysAreIndependent() {
+        // Given
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMinutes(1), clock::get);
+
+        // When
+        limiter.tryAcquire("a");
+
+        // Then
+        assertTrue(limiter.tryAcquire("a").compareTo(Duration.ZERO) > 0);
+        assertEquals(Duration.ZERO, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    void peek_ReportsExhaustionWithoutConsuming() {
+        // Given
+        RateLimiter limiter = new RateLimiter(2, Duration.ofMinutes(1), clock::get);
+        assertEquals(Duration.ZERO, limiter.peek("a"));
+        limiter.tryAcquire("a");
+
+        // When/Then
+        assertEquals(Duration.ZERO, limiter.peek("a"));
+        assertEquals(Duration.ZERO, limiter.peek("a"));
+        limiter.tryAcquire("a");
+        assertEquals(Duration.ofSeconds(30), limiter.peek("a"));
+    }
+
+    @Test
+    void reset_RestoresFullBucket() {
+        // Given
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMinutes(1), clock::get);
+        limiter.tryAcquire("a");
+
+        // When
+        limiter.reset("a");
+
+        // Then
+        assertEquals(Duration.ZERO, limiter.tryAcquire("a"));
+    }
+
+    @Test
+    void evictIdle_RemovesOnlyRefilledBuckets() {
+        // Given
+        RateLimiter limiter = new RateLimiter(2, Duration.ofMinutes(1), clock::get);
+        limiter.tryAcquire("old");
+        advance(Duration.ofSeconds(40));
+        limiter.tryAcquire("recent");
+
+        // When
+        int evicted = limiter.evictIdle();
+
+        // Then
+        assertEquals(1, evicted);
+        assertEquals(1, limiter.size());
+        assertEquals(Duration.ZERO, limiter.tryAcquire("old"));
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallersNeverExceedCapacity() throws Exception {
+        // Given: reloj parado, solo cuenta la ráfaga
+        RateLimiter limiter = new RateLimiter(100, Duration.ofHours(1), clock::get);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        if (limiter.tryAcquire("shared").isZero()) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertEquals(100, granted.get());
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,54 @@
+package com.dev.passwordmanager.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextTemplateTest {
+
+    @Test
+    void render_ReplacesPlaceholders() {
+        // Given
+        TextTemplate template = TextTemplate.compile("Hola {{name}}, tu código es {{ code }}.", false);
+
+        // When
+        String rendered = template.render(Map.of("name", "Ana", "code", 123456));
+
+        // Then
+        assertEquals("Hola Ana, tu código es 123456.", rendered);
+        assertEquals(List.of("name", "code"), template.placeholders());
+    }
+
+    @Test
+    void render_WithoutPlaceholders_ReturnsLiteral() {
+        assertEquals("Sin marcadores", TextTemplate.compile("Sin marcadores", false).render(Map.of()));
+    }
+
+    @Test
+    void render_Html_EscapesValuesButNotMarkup() {
+        // Given
+        TextTemplate template = TextTemplate.compile("<p>{{name}}</p>", true);
+
+        // When
+        String rendered = template.render(Map.of("name", "<script>\"x\" & 'y'</script>"));
+
+        // Then
+        assertEquals("<p>&lt;script&gt;&quot;x&quot; &amp; &#39;y&#39;&lt;/script&gt;</p>", rendered);
+    }
+
+    @Test
+    void render_MissingValue_Fails() {
+        TextTemplate template = TextTemplate.compile("{{code}}", false);
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of()));
+    }
+
+    @Test
+    void compile_UnclosedPlaceholder_Fails() {
+        assertThrows(IllegalArgumentException.class, () -> TextTemplate.compile("Hola {{name", false));
+        assertThrows(IllegalArgumentException.class, () -> TextTemplate.compile("Hola {{ }}", false));
+    }
+}